@@ -0,0 +1,186 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed-loop HTTP load generator: {@code --concurrency} clients each send GET requests round-robin
+ * over {@code --paths}, one at a time, for {@code --warmup} plus {@code --duration} seconds. Only
+ * requests started after the warmup are measured. Prints throughput and latency percentiles per path
+ * and overall, and appends them as CSV to {@code --out} when given.
+ *
+ * <p>Runs from source, no build needed: {@code java load-test/LoadTest.java --label virtual}.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        String[] paths = options.getOrDefault("paths", "/products?limit=100,/raw-materials?limit=100,/production-plan")
+                .split(",");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))).toNanos();
+        long durationNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))).toNanos();
+        String label = options.getOrDefault("label", "run");
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest[] requests = Arrays.stream(paths)
+                .map(path -> HttpRequest.newBuilder(URI.create(url + path)).timeout(Duration.ofSeconds(30)).build())
+                .toArray(HttpRequest[]::new);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        Recorder[][] recorders = new Recorder[concurrency][paths.length];
+        CountDownLatch done = new CountDownLatch(concurrency);
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                Recorder[] own = recorders[c];
+                for (int p = 0; p < paths.length; p++) {
+                    own[p] = new Recorder();
+                }
+                int offset = c;
+                clients.submit(() -> {
+                    try {
+                        for (long i = offset; ; i++) {
+                            int p = (int) (i % paths.length);
+                            long sent = System.nanoTime();
+                            if (sent >= end) {
+                                return;
+                            }
+                            boolean ok;
+                            try {
+                                ok = client.send(requests[p], HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                            } catch (IOException e) {
+                                ok = false;
+                            }
+                            if (sent >= measureFrom) {
+                                own[p].record(System.nanoTime() - sent, ok);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        double seconds = durationNanos / 1e9;
+        List<String> rows = new ArrayList<>();
+        Recorder total = new Recorder();
+        for (int p = 0; p < paths.length; p++) {
+            Recorder path = new Recorder();
+            for (Recorder[] own : recorders) {
+                path.addAll(own[p]);
+            }
+            total.addAll(path);
+            rows.add(path.summary(label, paths[p], concurrency, seconds));
+        }
+        rows.add(total.summary(label, "all", concurrency, seconds));
+
+        System.out.printf("%-10s %-32s %6s %10s %8s %9s %9s %9s %9s%n",
+                "label", "path", "conc", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String row : rows) {
+            String[] f = row.split(",");
+            System.out.printf("%-10s %-32s %6s %10s %8s %9s %9s %9s %9s%n", (Object[]) f);
+        }
+
+        String out = options.get("out");
+        if (out != null) {
+            boolean header = !new java.io.File(out).exists();
+            try (PrintWriter writer = new PrintWriter(new FileWriter(out, true))) {
+                if (header) {
+                    writer.println("label,path,concurrency,throughput,errors,p50_ms,p99_ms,p999_ms,max_ms");
+                }
+                rows.forEach(writer::println);
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Latencies of one client for one path. Each client owns its recorders, nothing is shared while
+     * the load runs.
+     */
+    static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void addAll(Recorder other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, count + other.count));
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        String summary(String label, String path, int concurrency, double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.join(",",
+                    label,
+                    path,
+                    String.valueOf(concurrency),
+                    String.format(Locale.ROOT, "%.1f", count / seconds),
+                    String.valueOf(errors),
+                    millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)),
+                    millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.2f", nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+#
+# Runs the same closed-loop load against the packaged application twice, once with the product,
+# raw material and production plan handlers on the worker pool and once on virtual threads, and
+# prints throughput and tail latency for both. Results are appended to load-test/results.csv.
+#
+# Needs DB_URL, DB_USER and DB_PASSWORD like the application itself. The catalog is seeded through
+# the CSV import endpoints; imports match on names, so running this again does not grow it.
+#
+#   CONCURRENCY=400 DURATION=30 WARMUP=10 ./load-test/compare.sh
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+: "${DB_URL:?DB_URL is required}"
+: "${DB_USER:?DB_USER is required}"
+: "${DB_PASSWORD:?DB_PASSWORD is required}"
+# The reactive client reads the same database.
+export DB_REACTIVE_URL=${DB_REACTIVE_URL:-${DB_URL#jdbc:}}
+
+PORT=${PORT:-8080}
+CONCURRENCY=${CONCURRENCY:-400}
+DURATION=${DURATION:-30}
+WARMUP=${WARMUP:-10}
+PRODUCTS=${PRODUCTS:-2000}
+MATERIALS=${MATERIALS:-200}
+FAN_OUT=${FAN_OUT:-5}
+PATHS=${PATHS:-/products?limit=100,/raw-materials?limit=100,/raw-materials/low-stock,/production-plan}
+RESULTS=${RESULTS:-load-test/results.csv}
+URL="http://localhost:${PORT}"
+
+if [[ "${SKIP_BUILD:-false}" != "true" ]]; then
+    ./mvnw -B -q package -DskipTests
+fi
+
+app_pid=
+stop_app() {
+    if [[ -n "$app_pid" ]]; then
+        kill "$app_pid" 2>/dev/null || true
+        wait "$app_pid" 2>/dev/null || true
+        app_pid=
+    fi
+}
+trap stop_app EXIT
+
+start_app() {
+    VIRTUAL_THREADS="$1" PORT="$PORT" java ${JAVA_OPTS:-} -jar target/quarkus-app/quarkus-run.jar \
+        > "target/load-test-$2.log" 2>&1 &
+    app_pid=$!
+    for _ in $(seq 1 120); do
+        if curl -sf "$URL/production-plan" > /dev/null; then
+            return
+        fi
+        sleep 1
+    done
+    echo "Application did not start, see target/load-test-$2.log" >&2
+    exit 1
+}
+
+seed() {
+    awk -v materials="$MATERIALS" 'BEGIN {
+        print "name,stock_quantity"
+        for (m = 1; m <= materials; m++) printf "Load Material %d,%d\n", m, 1000 + (m * 7919) % 9000
+    }' | curl -sf -X POST -H 'Content-Type: text/csv' --data-binary @- "$URL/raw-materials/import" > /dev/null
+
+    awk -v products="$PRODUCTS" -v materials="$MATERIALS" -v fanOut="$FAN_OUT" 'BEGIN {
+        print "product_name,product_price,raw_material_name,quantity_required"
+        for (p = 1; p <= products; p++)
+            for (l = 0; l < fanOut; l++)
+                printf "Load Product %d,%s,Load Material %d,%d\n", p, (l == 0 ? sprintf("%d.00", 10 + p % 490) : ""),
+                    1 + (p * 31 + l * 17) % materials, 1 + (p + l) % 9
+    }' | curl -sf -X POST -H 'Content-Type: text/csv' --data-binary @- "$URL/products/import" > /dev/null
+}
+
+first=true
+for mode in platform virtual; do
+    [[ "$mode" == "virtual" ]] && virtual=true || virtual=false
+    start_app "$virtual" "$mode"
+    if [[ "$first" == "true" ]]; then
+        seed
+        first=false
+    fi
+    java load-test/LoadTest.java --url "$URL" --paths "$PATHS" --label "$mode" \
+        --concurrency "$CONCURRENCY" --warmup "$WARMUP" --duration "$DURATION" --out "$RESULTS"
+    stop_app
+done
@@ -0,0 +1,60 @@
+package com.production.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.production.dto.ProductResponseDTO;
+import com.production.entity.ProductEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of the whole catalog and Jackson serialization of the responses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private List<ProductResponseDTO> products;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticCatalog catalog) {
+        objectMapper = new ObjectMapper();
+        products = mapProducts(catalog);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> mapProducts(SyntheticCatalog catalog) {
+        List<ProductResponseDTO> dtos = new ArrayList<>(catalog.productEntities.size());
+        for (ProductEntity product : catalog.productEntities) {
+            dtos.add(new ProductResponseDTO(product));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public byte[] serializeProducts() throws Exception {
+        return objectMapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializePlan(SyntheticCatalog catalog) throws Exception {
+        return objectMapper.writeValueAsBytes(catalog.plan);
+    }
+}
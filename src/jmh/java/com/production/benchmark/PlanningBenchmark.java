@@ -0,0 +1,168 @@
+package com.production.benchmark;
+
+import com.production.dto.ProductionItemDTO;
+import com.production.dto.ProductionPlanDTO;
+import com.production.entity.ProductEntity;
+import com.production.entity.ProductRawMaterialEntity;
+import com.production.entity.RawMaterialEntity;
+import com.production.planning.PlanningKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The calculations behind {@code ProductionPlanService}: a full plan, the incremental update the
+ * plan engine runs after a stock change, and the per-product questions answered from stock.
+ *
+ * <p>The {@code entityWalk} benchmarks are the baseline the kernel replaced: the same greedy plan
+ * and single-product quantity computed by walking loaded {@link ProductEntity} graphs with a boxed
+ * {@code Map<Long, Integer>} of remaining stock. Neither side includes loading the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlanningBenchmark {
+
+    /**
+     * Walks a fixed random sequence of rows and materials, so every invocation asks about a
+     * different product without paying for a random draw.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private static final int SEQUENCE = 1 << 12;
+
+        private int[] rows;
+        private int[] materials;
+        private int next;
+
+        int[] planned;
+        long[] remaining;
+
+        @Setup(Level.Trial)
+        public void setUp(SyntheticCatalog catalog) {
+            SplittableRandom random = new SplittableRandom(7);
+            rows = random.ints(SEQUENCE, 0, catalog.kernel.size()).toArray();
+            materials = random.ints(SEQUENCE, 0, catalog.materials).toArray();
+
+            planned = new int[catalog.kernel.size()];
+            remaining = catalog.stock.clone();
+            catalog.kernel.allocate(0, planned, remaining);
+        }
+
+        int row() {
+            next = (next + 1) & (SEQUENCE - 1);
+            return rows[next];
+        }
+
+        int material() {
+            next = (next + 1) & (SEQUENCE - 1);
+            return materials[next];
+        }
+    }
+
+    @Benchmark
+    public ProductionPlanDTO fullPlan(SyntheticCatalog catalog) {
+        return SyntheticCatalog.plan(catalog.kernel, catalog.stock.clone());
+    }
+
+    @Benchmark
+    public ProductionPlanDTO entityWalkPlan(SyntheticCatalog catalog) {
+        List<ProductEntity> products = new ArrayList<>(catalog.productEntities);
+        products.sort((p1, p2) -> p2.getPrice().compareTo(p1.getPrice()));
+        Map<Long, Integer> remainingStock = stockById(catalog);
+
+        ProductionPlanDTO plan = new ProductionPlanDTO();
+        for (ProductEntity product : products) {
+            int maxQuantity = entityMaxQuantity(product, remainingStock);
+            if (maxQuantity > 0) {
+                plan.addProductionItem(new ProductionItemDTO(
+                        product.getId(), product.getName(), maxQuantity, product.getPrice()));
+                for (ProductRawMaterialEntity line : product.getProductRawMaterials()) {
+                    Long rawMaterialId = line.getRawMaterial().getId();
+                    remainingStock.put(rawMaterialId,
+                            remainingStock.get(rawMaterialId) - line.getQuantityRequired() * maxQuantity);
+                }
+            }
+        }
+        return plan;
+    }
+
+    @Benchmark
+    public PlanningKernel compileAndPlan(SyntheticCatalog catalog) {
+        PlanningKernel kernel = PlanningKernel.compile(catalog.kernelProducts, catalog.materials);
+        kernel.allocate(0, new int[kernel.size()], catalog.stock.clone());
+        return kernel;
+    }
+
+    /**
+     * One unit of stock arrives for a random material and the plan is walked again from the first
+     * product that uses it, as the plan engine does.
+     */
+    @Benchmark
+    public int[] incrementalUpdate(SyntheticCatalog catalog, Cursor cursor) {
+        PlanningKernel kernel = catalog.kernel;
+        int material = cursor.material();
+        int start = kernel.firstConsumer(material);
+        if (start == PlanningKernel.NO_CONSUMER) {
+            return cursor.planned;
+        }
+        kernel.release(start, cursor.planned, cursor.remaining);
+        cursor.remaining[material]++;
+        kernel.allocate(start, cursor.planned, cursor.remaining);
+        return cursor.planned;
+    }
+
+    @Benchmark
+    public int maxQuantity(SyntheticCatalog catalog, Cursor cursor) {
+        return catalog.kernel.maxQuantity(cursor.row(), catalog.stock);
+    }
+
+    @Benchmark
+    public int entityWalkMaxQuantity(SyntheticCatalog catalog, Cursor cursor) {
+        // The stock map was built for every question, as the service used to.
+        return entityMaxQuantity(catalog.productEntities.get(cursor.row()), stockById(catalog));
+    }
+
+    @Benchmark
+    public boolean canProduceQuantity(SyntheticCatalog catalog, Cursor cursor) {
+        return catalog.kernel.canProduce(cursor.row(), 10, catalog.stock);
+    }
+
+    private static Map<Long, Integer> stockById(SyntheticCatalog catalog) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (RawMaterialEntity material : catalog.rawMaterialEntities) {
+            stock.put(material.getId(), material.getStockQuantity());
+        }
+        return stock;
+    }
+
+    private static int entityMaxQuantity(ProductEntity product, Map<Long, Integer> remainingStock) {
+        if (product.getProductRawMaterials().isEmpty()) {
+            return 0;
+        }
+        int maxQuantity = Integer.MAX_VALUE;
+        for (ProductRawMaterialEntity line : product.getProductRawMaterials()) {
+            int available = remainingStock.getOrDefault(line.getRawMaterial().getId(), 0);
+            maxQuantity = Math.min(maxQuantity, available / line.getQuantityRequired());
+        }
+        return maxQuantity;
+    }
+}
@@ -0,0 +1,100 @@
+package com.production.benchmark;
+
+import com.production.dto.ProductionItemDTO;
+import com.production.dto.ProductionPlanDTO;
+import com.production.entity.ProductEntity;
+import com.production.entity.ProductRawMaterialEntity;
+import com.production.entity.RawMaterialEntity;
+import com.production.planning.PlanningKernel;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A reproducible random catalog: {@code products} products, each using {@code fanOut} distinct
+ * materials out of {@code materials}, with prices and stock drawn from a fixed seed. The same
+ * catalog is available as entities, as kernel input and as a computed plan.
+ */
+@State(Scope.Benchmark)
+public class SyntheticCatalog {
+
+    @Param({"1000", "10000", "50000"})
+    public int products;
+
+    @Param({"200"})
+    public int materials;
+
+    @Param({"5", "20"})
+    public int fanOut;
+
+    public List<RawMaterialEntity> rawMaterialEntities;
+    public List<ProductEntity> productEntities;
+    public List<PlanningKernel.Product> kernelProducts;
+    public PlanningKernel kernel;
+    public long[] stock;
+    public ProductionPlanDTO plan;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        int lines = Math.min(fanOut, materials);
+
+        rawMaterialEntities = new ArrayList<>(materials);
+        stock = new long[materials];
+        for (int m = 0; m < materials; m++) {
+            RawMaterialEntity material = new RawMaterialEntity("Material " + m, 1_000 + random.nextInt(100_000));
+            material.setId((long) m + 1);
+            rawMaterialEntities.add(material);
+            stock[m] = material.getStockQuantity();
+        }
+
+        productEntities = new ArrayList<>(products);
+        kernelProducts = new ArrayList<>(products);
+        for (int p = 0; p < products; p++) {
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            ProductEntity product = new ProductEntity("Product " + p, price);
+            product.setId((long) p + 1);
+
+            int[] columns = random.ints(0, materials).distinct().limit(lines).toArray();
+            long[] quantities = new long[lines];
+            for (int j = 0; j < lines; j++) {
+                int quantity = 1 + random.nextInt(10);
+                quantities[j] = quantity;
+                ProductRawMaterialEntity line = new ProductRawMaterialEntity(
+                        product, rawMaterialEntities.get(columns[j]), quantity);
+                line.setId((long) p * lines + j + 1);
+                product.getProductRawMaterials().add(line);
+            }
+
+            productEntities.add(product);
+            kernelProducts.add(new PlanningKernel.Product(product.getId(), product.getName(), price, columns, quantities));
+        }
+
+        kernel = PlanningKernel.compile(kernelProducts, materials);
+        plan = plan(kernel, stock.clone());
+    }
+
+    /**
+     * Full greedy walk plus the DTO the production plan endpoint returns.
+     */
+    public static ProductionPlanDTO plan(PlanningKernel kernel, long[] remaining) {
+        int[] planned = new int[kernel.size()];
+        kernel.allocate(0, planned, remaining);
+
+        ProductionPlanDTO plan = new ProductionPlanDTO();
+        for (int row = 0; row < planned.length; row++) {
+            if (planned[row] > 0) {
+                plan.addProductionItem(new ProductionItemDTO(
+                        kernel.productId(row), kernel.name(row), planned[row], kernel.price(row)));
+            }
+        }
+        return plan;
+    }
+}
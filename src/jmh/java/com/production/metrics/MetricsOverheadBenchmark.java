@@ -0,0 +1,69 @@
+package com.production.metrics;
+
+import com.production.benchmark.SyntheticCatalog;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Before/after cost of the application's own recording paths on a hot-path call: the same
+ * {@code canProduce} check bare, followed by a {@link StockMetrics} mutation count, and timed as a
+ * {@link PhaseTimers} phase, with the meters registered on a Prometheus registry as in the
+ * application. Run with several threads so contention on the meters shows up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    private StockMetrics stockMetrics;
+    private PhaseTimers phaseTimers;
+    private int row;
+
+    @Setup(Level.Trial)
+    public void setUp(SyntheticCatalog catalog) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        stockMetrics = new StockMetrics();
+        stockMetrics.meterRegistry = registry;
+        stockMetrics.register();
+        phaseTimers = new PhaseTimers(registry, "incremental");
+        row = catalog.kernel.size() / 2;
+    }
+
+    @Benchmark
+    public boolean baseline(SyntheticCatalog catalog) {
+        return catalog.kernel.canProduce(row, 10, catalog.stock);
+    }
+
+    @Benchmark
+    public boolean stockMetrics(SyntheticCatalog catalog) {
+        boolean result = catalog.kernel.canProduce(row, 10, catalog.stock);
+        stockMetrics.stockIncreased();
+        return result;
+    }
+
+    @Benchmark
+    public boolean phaseTimer(SyntheticCatalog catalog) {
+        long start = System.nanoTime();
+        boolean result = catalog.kernel.canProduce(row, 10, catalog.stock);
+        phaseTimers.walk.lap(start);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.production.alert;
+
+import com.production.dto.LowStockAlertDTO;
+import com.production.event.StockChangedEvent;
+import com.production.event.StockImportedEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes low-stock threshold crossings to subscribers as committed stock changes come in, without
+ * querying the database. Every stock a CSV import changes or creates counts as a change as well. A
+ * raw material is low when its stock is at or below the subscriber's threshold, the same rule as
+ * {@code GET /raw-materials/low-stock}.
+ *
+ * <p>Alerts are emitted on the committing thread into a per-subscriber buffer of
+ * {@code alerts.low-stock.buffer-size} alerts, so emitting never waits on a client. A subscriber
+ * that falls that far behind has its stream failed and is dropped; it can reconnect and resync with
+ * the low-stock listing.
+ */
+@ApplicationScoped
+public class LowStockAlerts {
+
+    @ConfigProperty(name = "alerts.low-stock.buffer-size", defaultValue = "256")
+    int bufferSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public Multi<LowStockAlertDTO> subscribe(int threshold) {
+        return Multi.createFrom().emitter(emitter -> {
+            Subscriber subscriber = new Subscriber(threshold, emitter);
+            subscribers.add(subscriber);
+            emitter.onTermination(() -> subscribers.remove(subscriber));
+        }, bufferSize);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void onStockChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockChangedEvent event) {
+        alert(event);
+    }
+
+    void onStockImported(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockImportedEvent event) {
+        for (StockChangedEvent change : event.changes()) {
+            alert(change);
+        }
+    }
+
+    private void alert(StockChangedEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            LowStockAlertDTO alert = subscriber.alertFor(event);
+            if (alert != null) {
+                subscriber.emitter().emit(alert);
+            }
+        }
+    }
+
+    private record Subscriber(int threshold, MultiEmitter<? super LowStockAlertDTO> emitter) {
+
+        LowStockAlertDTO alertFor(StockChangedEvent event) {
+            boolean low = event.stockQuantity() <= threshold;
+            boolean wasLow = !event.created() && event.previousQuantity() <= threshold;
+            if (low == wasLow) {
+                return null;
+            }
+            return new LowStockAlertDTO(
+                    event.rawMaterialId(),
+                    low ? LowStockAlertDTO.LOW : LowStockAlertDTO.RECOVERED,
+                    event.created() ? null : event.previousQuantity(),
+                    event.stockQuantity(),
+                    threshold);
+        }
+    }
+}
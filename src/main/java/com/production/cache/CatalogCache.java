@@ -0,0 +1,55 @@
+package com.production.cache;
+
+import com.production.entity.RawMaterialEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.StockChangedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+
+/**
+ * Keeps the second-level and query caches consistent with the writes Hibernate does not see: the
+ * native stock updates of {@code RawMaterialRepository} and the JDBC imports of
+ * {@code CatalogImportRepository}. Both announce themselves with events, a stock change evicts that
+ * raw material and a catalog-wide change evicts every region, query results included.
+ *
+ * <p>Eviction happens twice: when the event is fired, so later reads in the writing transaction go
+ * to the database, and again after commit, to drop a copy another transaction may have cached
+ * from the pre-commit row in between.
+ */
+@ApplicationScoped
+public class CatalogCache {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    void onStockChanged(@Observes StockChangedEvent event) {
+        evictRawMaterial(event.rawMaterialId());
+    }
+
+    void afterStockChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockChangedEvent event) {
+        evictRawMaterial(event.rawMaterialId());
+    }
+
+    void onCatalogChanged(@Observes CatalogChangedEvent event) {
+        if (event.affectsAll()) {
+            evictAll();
+        }
+    }
+
+    void afterCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        if (event.affectsAll()) {
+            evictAll();
+        }
+    }
+
+    private void evictRawMaterial(Long id) {
+        sessionFactory.getCache().evictEntityData(RawMaterialEntity.class, id);
+    }
+
+    private void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,35 @@
+package com.production.dto;
+
+/**
+ * Available-to-promise for one raw material: the stock on hand minus the units held by active
+ * reservations.
+ */
+public class AvailabilityDTO {
+
+    private Long rawMaterialId;
+    private Integer stockQuantity;
+    private Long reserved;
+    private Long available;
+
+    public AvailabilityDTO() {
+    }
+
+    public AvailabilityDTO(Long rawMaterialId, Integer stockQuantity, Long reserved) {
+        this.rawMaterialId = rawMaterialId;
+        this.stockQuantity = stockQuantity;
+        this.reserved = reserved;
+        this.available = stockQuantity - reserved;
+    }
+
+    public Long getRawMaterialId() { return rawMaterialId; }
+    public void setRawMaterialId(Long rawMaterialId) { this.rawMaterialId = rawMaterialId; }
+
+    public Integer getStockQuantity() { return stockQuantity; }
+    public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
+
+    public Long getReserved() { return reserved; }
+    public void setReserved(Long reserved) { this.reserved = reserved; }
+
+    public Long getAvailable() { return available; }
+    public void setAvailable(Long available) { this.available = available; }
+}
@@ -0,0 +1,56 @@
+package com.production.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReportDTO {
+
+    private long received;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private List<RejectedRowDTO> rejectedRows = new ArrayList<>();
+
+    public ImportReportDTO() {
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<RejectedRowDTO> getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(List<RejectedRowDTO> rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+}
@@ -0,0 +1,65 @@
+package com.production.dto;
+
+public class LowStockAlertDTO {
+
+    public static final String LOW = "LOW";
+    public static final String RECOVERED = "RECOVERED";
+
+    private Long rawMaterialId;
+    private String state;
+    private Integer previousQuantity;
+    private Integer stockQuantity;
+    private Integer threshold;
+
+    public LowStockAlertDTO() {
+    }
+
+    public LowStockAlertDTO(Long rawMaterialId, String state, Integer previousQuantity, Integer stockQuantity,
+                            Integer threshold) {
+        this.rawMaterialId = rawMaterialId;
+        this.state = state;
+        this.previousQuantity = previousQuantity;
+        this.stockQuantity = stockQuantity;
+        this.threshold = threshold;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public void setRawMaterialId(Long rawMaterialId) {
+        this.rawMaterialId = rawMaterialId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Integer getPreviousQuantity() {
+        return previousQuantity;
+    }
+
+    public void setPreviousQuantity(Integer previousQuantity) {
+        this.previousQuantity = previousQuantity;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public Integer getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(Integer threshold) {
+        this.threshold = threshold;
+    }
+}
@@ -0,0 +1,31 @@
+package com.production.dto;
+
+public class NameMatchDTO {
+
+    private Long id;
+    private String name;
+
+    public NameMatchDTO() {
+    }
+
+    public NameMatchDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,112 @@
+package com.production.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The plan lines that changed between two plan versions. When the older version is no longer known,
+ * {@code full} is set and {@code productionItems} carries the whole plan instead of the three lists.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlanChangesDTO {
+
+    private long since;
+    private long version;
+    private boolean full;
+    private List<ProductionItemDTO> added;
+    private List<ProductionItemDTO> changed;
+    private List<Long> removed;
+    private List<ProductionItemDTO> productionItems;
+    private BigDecimal totalValue;
+
+    public PlanChangesDTO() {
+    }
+
+    public static PlanChangesDTO delta(long since, long version, List<ProductionItemDTO> added,
+                                       List<ProductionItemDTO> changed, List<Long> removed, BigDecimal totalValue) {
+        PlanChangesDTO changes = new PlanChangesDTO();
+        changes.since = since;
+        changes.version = version;
+        changes.added = added;
+        changes.changed = changed;
+        changes.removed = removed;
+        changes.totalValue = totalValue;
+        return changes;
+    }
+
+    public static PlanChangesDTO full(long since, long version, ProductionPlanDTO plan) {
+        PlanChangesDTO changes = new PlanChangesDTO();
+        changes.since = since;
+        changes.version = version;
+        changes.full = true;
+        changes.productionItems = plan.getProductionItems();
+        changes.totalValue = plan.getTotalValue();
+        return changes;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<ProductionItemDTO> getAdded() {
+        return added;
+    }
+
+    public void setAdded(List<ProductionItemDTO> added) {
+        this.added = added;
+    }
+
+    public List<ProductionItemDTO> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<ProductionItemDTO> changed) {
+        this.changed = changed;
+    }
+
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<Long> removed) {
+        this.removed = removed;
+    }
+
+    public List<ProductionItemDTO> getProductionItems() {
+        return productionItems;
+    }
+
+    public void setProductionItems(List<ProductionItemDTO> productionItems) {
+        this.productionItems = productionItems;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+}
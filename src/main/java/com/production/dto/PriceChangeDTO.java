@@ -0,0 +1,33 @@
+package com.production.dto;
+
+import java.math.BigDecimal;
+
+public class PriceChangeDTO {
+
+    private Long productId;
+    private BigDecimal price;
+
+    public PriceChangeDTO() {
+    }
+
+    public PriceChangeDTO(Long productId, BigDecimal price) {
+        this.productId = productId;
+        this.price = price;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
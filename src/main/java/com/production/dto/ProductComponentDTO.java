@@ -0,0 +1,26 @@
+package com.production.dto;
+
+public class ProductComponentDTO {
+
+    private Long componentId;
+    private String componentName;
+    private Integer quantityRequired;
+
+    public ProductComponentDTO() {
+    }
+
+    public ProductComponentDTO(Long componentId, String componentName, Integer quantityRequired) {
+        this.componentId = componentId;
+        this.componentName = componentName;
+        this.quantityRequired = quantityRequired;
+    }
+
+    public Long getComponentId() { return componentId; }
+    public void setComponentId(Long componentId) { this.componentId = componentId; }
+
+    public String getComponentName() { return componentName; }
+    public void setComponentName(String componentName) { this.componentName = componentName; }
+
+    public Integer getQuantityRequired() { return quantityRequired; }
+    public void setQuantityRequired(Integer quantityRequired) { this.quantityRequired = quantityRequired; }
+}
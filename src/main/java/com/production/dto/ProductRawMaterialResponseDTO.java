@@ -11,6 +11,12 @@ public class ProductRawMaterialResponseDTO {
     public ProductRawMaterialResponseDTO() {
     }
 
+    public ProductRawMaterialResponseDTO(Long id, RawMaterialBasicDTO rawMaterial, Integer quantityRequired) {
+        this.id = id;
+        this.rawMaterial = rawMaterial;
+        this.quantityRequired = quantityRequired;
+    }
+
     public ProductRawMaterialResponseDTO(ProductRawMaterialEntity prm) {
         this.id = prm.getId();
         this.rawMaterial = new RawMaterialBasicDTO(prm.getRawMaterial());
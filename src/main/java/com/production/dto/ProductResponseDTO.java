@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.production.entity.ProductEntity;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,6 +19,14 @@ public class ProductResponseDTO {
     public ProductResponseDTO() {
     }
 
+    public ProductResponseDTO(Long id, String name, BigDecimal price, Integer stock) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.productRawMaterials = new ArrayList<>();
+    }
+
     public ProductResponseDTO(ProductEntity product) {
         this.id = product.getId();
         this.name = product.getName();
@@ -11,6 +11,12 @@ public class RawMaterialBasicDTO {
     public RawMaterialBasicDTO() {
     }
 
+    public RawMaterialBasicDTO(Long id, String name, Integer stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.stockQuantity = stockQuantity;
+    }
+
     public RawMaterialBasicDTO(RawMaterialEntity rawMaterial) {
         this.id = rawMaterial.getId();
         this.name = rawMaterial.getName();
@@ -0,0 +1,50 @@
+package com.production.dto;
+
+import com.production.entity.ReservationEntity;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ReservationDTO {
+
+    private Long id;
+    private Long productId;
+    private Integer quantity;
+    private String status;
+    private Instant expiresAt;
+    private Map<Long, Integer> materials;
+
+    public ReservationDTO() {
+    }
+
+    public ReservationDTO(ReservationEntity reservation) {
+        this.id = reservation.getId();
+        this.productId = reservation.getProductId();
+        this.quantity = reservation.getQuantity();
+        this.status = reservation.getStatus().name();
+        this.expiresAt = reservation.getExpiresAt();
+        this.materials = new TreeMap<>(reservation.getMaterials());
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    /**
+     * Units held per raw material id.
+     */
+    public Map<Long, Integer> getMaterials() { return materials; }
+    public void setMaterials(Map<Long, Integer> materials) { this.materials = materials; }
+}
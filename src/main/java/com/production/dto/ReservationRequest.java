@@ -0,0 +1,41 @@
+package com.production.dto;
+
+public class ReservationRequest {
+
+    private Long productId;
+    private Integer quantity;
+    private Long ttlSeconds;
+
+    public ReservationRequest() {
+    }
+
+    public ReservationRequest(Long productId, Integer quantity, Long ttlSeconds) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
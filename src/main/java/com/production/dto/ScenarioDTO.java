@@ -0,0 +1,48 @@
+package com.production.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A what-if scenario: stock movements and price changes applied on top of the current plan without
+ * touching the real inventory.
+ */
+public class ScenarioDTO {
+
+    private String name;
+    private List<StockMovementDTO> stock = new ArrayList<>();
+    private List<PriceChangeDTO> prices = new ArrayList<>();
+
+    public ScenarioDTO() {
+    }
+
+    public ScenarioDTO(String name, List<StockMovementDTO> stock, List<PriceChangeDTO> prices) {
+        this.name = name;
+        this.stock = stock;
+        this.prices = prices;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<StockMovementDTO> getStock() {
+        return stock;
+    }
+
+    public void setStock(List<StockMovementDTO> stock) {
+        this.stock = stock;
+    }
+
+    public List<PriceChangeDTO> getPrices() {
+        return prices;
+    }
+
+    public void setPrices(List<PriceChangeDTO> prices) {
+        this.prices = prices;
+    }
+}
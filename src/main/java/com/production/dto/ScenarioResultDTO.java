@@ -0,0 +1,55 @@
+package com.production.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ScenarioResultDTO {
+
+    private String name;
+    private List<ProductionItemDTO> productionItems;
+    private BigDecimal totalValue;
+    private BigDecimal totalValueChange;
+
+    public ScenarioResultDTO() {
+    }
+
+    public ScenarioResultDTO(String name, List<ProductionItemDTO> productionItems, BigDecimal totalValue,
+                             BigDecimal totalValueChange) {
+        this.name = name;
+        this.productionItems = productionItems;
+        this.totalValue = totalValue;
+        this.totalValueChange = totalValueChange;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<ProductionItemDTO> getProductionItems() {
+        return productionItems;
+    }
+
+    public void setProductionItems(List<ProductionItemDTO> productionItems) {
+        this.productionItems = productionItems;
+    }
+
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+
+    public BigDecimal getTotalValueChange() {
+        return totalValueChange;
+    }
+
+    public void setTotalValueChange(BigDecimal totalValueChange) {
+        this.totalValueChange = totalValueChange;
+    }
+}
@@ -0,0 +1,42 @@
+package com.production.dto;
+
+import java.time.Instant;
+
+/**
+ * The stock of a raw material at a point in time, reconstructed from the stock ledger: the snapshot
+ * taken at {@code snapshotAt} (none when {@code null}) plus the {@code replayedMovements} after it.
+ */
+public class StockAsOfDTO {
+
+    private Long rawMaterialId;
+    private Instant asOf;
+    private Long stockQuantity;
+    private Instant snapshotAt;
+    private Long replayedMovements;
+
+    public StockAsOfDTO() {
+    }
+
+    public StockAsOfDTO(Long rawMaterialId, Instant asOf, Long stockQuantity, Instant snapshotAt, Long replayedMovements) {
+        this.rawMaterialId = rawMaterialId;
+        this.asOf = asOf;
+        this.stockQuantity = stockQuantity;
+        this.snapshotAt = snapshotAt;
+        this.replayedMovements = replayedMovements;
+    }
+
+    public Long getRawMaterialId() { return rawMaterialId; }
+    public void setRawMaterialId(Long rawMaterialId) { this.rawMaterialId = rawMaterialId; }
+
+    public Instant getAsOf() { return asOf; }
+    public void setAsOf(Instant asOf) { this.asOf = asOf; }
+
+    public Long getStockQuantity() { return stockQuantity; }
+    public void setStockQuantity(Long stockQuantity) { this.stockQuantity = stockQuantity; }
+
+    public Instant getSnapshotAt() { return snapshotAt; }
+    public void setSnapshotAt(Instant snapshotAt) { this.snapshotAt = snapshotAt; }
+
+    public Long getReplayedMovements() { return replayedMovements; }
+    public void setReplayedMovements(Long replayedMovements) { this.replayedMovements = replayedMovements; }
+}
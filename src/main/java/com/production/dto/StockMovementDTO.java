@@ -0,0 +1,31 @@
+package com.production.dto;
+
+public class StockMovementDTO {
+
+    private Long rawMaterialId;
+    private Integer delta;
+
+    public StockMovementDTO() {
+    }
+
+    public StockMovementDTO(Long rawMaterialId, Integer delta) {
+        this.rawMaterialId = rawMaterialId;
+        this.delta = delta;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public void setRawMaterialId(Long rawMaterialId) {
+        this.rawMaterialId = rawMaterialId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
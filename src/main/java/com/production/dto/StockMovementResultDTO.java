@@ -0,0 +1,64 @@
+package com.production.dto;
+
+public class StockMovementResultDTO {
+
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INSUFFICIENT_STOCK = "INSUFFICIENT_STOCK";
+
+    private Long rawMaterialId;
+    private Integer delta;
+    private boolean applied;
+    private Integer stockQuantity;
+    private String error;
+
+    public StockMovementResultDTO() {
+    }
+
+    public StockMovementResultDTO(Long rawMaterialId, Integer delta, boolean applied, Integer stockQuantity, String error) {
+        this.rawMaterialId = rawMaterialId;
+        this.delta = delta;
+        this.applied = applied;
+        this.stockQuantity = stockQuantity;
+        this.error = error;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public void setRawMaterialId(Long rawMaterialId) {
+        this.rawMaterialId = rawMaterialId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
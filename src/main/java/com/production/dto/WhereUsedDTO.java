@@ -0,0 +1,51 @@
+package com.production.dto;
+
+public class WhereUsedDTO {
+
+    private Long productId;
+    private String productName;
+    private Long quantityRequired;
+    private Integer plannedQuantity;
+
+    public WhereUsedDTO() {
+    }
+
+    public WhereUsedDTO(Long productId, String productName, Long quantityRequired, Integer plannedQuantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantityRequired = quantityRequired;
+        this.plannedQuantity = plannedQuantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Long getQuantityRequired() {
+        return quantityRequired;
+    }
+
+    public void setQuantityRequired(Long quantityRequired) {
+        this.quantityRequired = quantityRequired;
+    }
+
+    public Integer getPlannedQuantity() {
+        return plannedQuantity;
+    }
+
+    public void setPlannedQuantity(Integer plannedQuantity) {
+        this.plannedQuantity = plannedQuantity;
+    }
+}
@@ -0,0 +1,73 @@
+package com.production.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * A sub-assembly line of a bill of materials: making one unit of {@code product} takes
+ * {@code quantityRequired} units of {@code component}, which is itself a product built from its own
+ * bill of materials. Components never form a cycle.
+ */
+@Entity
+@Table(name = "product_components",
+        uniqueConstraints = @UniqueConstraint(name = "product_components_product_component",
+                columnNames = {"product_id", "component_id"}),
+        indexes = @Index(name = "product_components_component", columnList = "component_id"))
+public class ProductComponentEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_components_seq")
+    @SequenceGenerator(name = "product_components_seq", sequenceName = "product_components_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private ProductEntity product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "component_id", nullable = false)
+    private ProductEntity component;
+
+    @Column(name = "quantity_required", nullable = false)
+    private Integer quantityRequired;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    public ProductComponentEntity() {
+    }
+
+    public ProductComponentEntity(ProductEntity product, ProductEntity component, Integer quantityRequired) {
+        this.product = product;
+        this.component = component;
+        this.quantityRequired = quantityRequired;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ProductEntity getProduct() {
+        return product;
+    }
+
+    public ProductEntity getComponent() {
+        return component;
+    }
+
+    public Integer getQuantityRequired() {
+        return quantityRequired;
+    }
+
+    public void setQuantityRequired(Integer quantityRequired) {
+        this.quantityRequired = quantityRequired;
+    }
+
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+}
@@ -1,17 +1,23 @@
 package com.production.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
 @Table(name = "products")
 public class ProductEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 100)
@@ -23,6 +29,12 @@ public class ProductEntity {
     @Column
     private Integer stock;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(
             mappedBy = "product",
             cascade = CascadeType.ALL,
@@ -52,6 +64,9 @@ public class ProductEntity {
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
 
+    @JsonIgnore
+    public Long getVersion() { return version; }
+
     public List<ProductRawMaterialEntity> getProductRawMaterials() { return productRawMaterials; }
     public void setProductRawMaterials(List<ProductRawMaterialEntity> productRawMaterials) {
         this.productRawMaterials = productRawMaterials;
@@ -1,13 +1,17 @@
 package com.production.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
+@Cacheable
 @Table(name = "product_raw_materials")
 public class ProductRawMaterialEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_raw_materials_seq")
+    @SequenceGenerator(name = "product_raw_materials_seq", sequenceName = "product_raw_materials_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -21,6 +25,11 @@ public class ProductRawMaterialEntity {
     @Column(name = "quantity_required", nullable = false)
     private Integer quantityRequired;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public ProductRawMaterialEntity() {
     }
 
@@ -61,4 +70,9 @@ public class ProductRawMaterialEntity {
     public void setQuantityRequired(Integer quantityRequired) {
         this.quantityRequired = quantityRequired;
     }
-}
\ No newline at end of file
+
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+}
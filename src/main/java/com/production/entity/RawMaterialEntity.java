@@ -1,19 +1,25 @@
 package com.production.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
 @Table(name = "raw_materials")
 public class RawMaterialEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "raw_materials_seq")
+    @SequenceGenerator(name = "raw_materials_seq", sequenceName = "raw_materials_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -25,6 +31,12 @@ public class RawMaterialEntity {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(
             mappedBy = "rawMaterial",
             cascade = CascadeType.ALL,
@@ -52,6 +64,11 @@ public class RawMaterialEntity {
         return stockQuantity;
     }
 
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
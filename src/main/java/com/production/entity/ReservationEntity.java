@@ -0,0 +1,77 @@
+package com.production.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A hold on the raw materials needed to produce {@code quantity} units of a product. The units held
+ * per raw material are fixed when the reservation is made, so later BOM edits do not change it.
+ */
+@Entity
+@Table(name = "reservations", indexes = @Index(name = "reservations_status_expires_at", columnList = "status, expires_at"))
+public class ReservationEntity {
+
+    public enum Status {
+        ACTIVE,
+        COMMITTED,
+        RELEASED,
+        EXPIRED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.ACTIVE;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "reservation_lines", joinColumns = @JoinColumn(name = "reservation_id"))
+    @MapKeyColumn(name = "raw_material_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<Long, Integer> materials = new HashMap<>();
+
+    public ReservationEntity() {
+    }
+
+    public ReservationEntity(Long productId, Integer quantity, Map<Long, Integer> materials,
+                             Instant createdAt, Instant expiresAt) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.materials = new HashMap<>(materials);
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getProductId() { return productId; }
+
+    public Integer getQuantity() { return quantity; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+
+    public Map<Long, Integer> getMaterials() { return materials; }
+}
@@ -0,0 +1,69 @@
+package com.production.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One committed change to the stock of a raw material, in the append-only stock ledger. Rows are
+ * only ever inserted, by the ledger writer with plain SQL, so the entity is read-only.
+ * {@code occurredAt} is strictly increasing across the whole table, in id order.
+ */
+@Entity
+@Table(name = "stock_movements",
+        indexes = @Index(name = "stock_movements_material_occurred_at", columnList = "raw_material_id, occurred_at"))
+public class StockMovementEntity {
+
+    public enum Kind {
+        CREATED,
+        CHANGED,
+        IMPORTED,
+        RECONCILED
+    }
+
+    // Ids come from nextval in the insert itself, one per row.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movements_seq")
+    @SequenceGenerator(name = "stock_movements_seq", sequenceName = "stock_movements_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "raw_material_id", nullable = false)
+    private Long rawMaterialId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
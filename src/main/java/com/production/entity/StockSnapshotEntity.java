@@ -0,0 +1,46 @@
+package com.production.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The stock of a raw material as the stock ledger had it at {@code takenAt}: the previous snapshot
+ * plus every movement after it, up to and including the one that occurred at {@code takenAt}.
+ * Written by the ledger writer only.
+ */
+@Entity
+@Table(name = "stock_snapshots",
+        indexes = @Index(name = "stock_snapshots_material_taken_at", columnList = "raw_material_id, taken_at"))
+public class StockSnapshotEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshots_seq")
+    @SequenceGenerator(name = "stock_snapshots_seq", sequenceName = "stock_snapshots_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "raw_material_id", nullable = false)
+    private Long rawMaterialId;
+
+    @Column(name = "stock_quantity", nullable = false)
+    private Integer stockQuantity;
+
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getRawMaterialId() {
+        return rawMaterialId;
+    }
+
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.production.event;
+
+/**
+ * Fired inside the transaction that creates, updates or deletes a product or its bill of materials.
+ * A {@code null} product id means the change may affect any product (e.g. a raw material was deleted).
+ */
+public record CatalogChangedEvent(Long productId) {
+
+    public static CatalogChangedEvent product(Long productId) {
+        return new CatalogChangedEvent(productId);
+    }
+
+    public static CatalogChangedEvent all() {
+        return new CatalogChangedEvent(null);
+    }
+
+    public boolean affectsAll() {
+        return productId == null;
+    }
+}
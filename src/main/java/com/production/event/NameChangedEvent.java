@@ -0,0 +1,25 @@
+package com.production.event;
+
+/**
+ * Fired inside the transaction that creates, renames or deletes a product or raw material.
+ * A {@code null} name means the row was deleted.
+ */
+public record NameChangedEvent(Type type, Long id, String name) {
+
+    public enum Type {
+        PRODUCT,
+        RAW_MATERIAL
+    }
+
+    public static NameChangedEvent product(Long id, String name) {
+        return new NameChangedEvent(Type.PRODUCT, id, name);
+    }
+
+    public static NameChangedEvent rawMaterial(Long id, String name) {
+        return new NameChangedEvent(Type.RAW_MATERIAL, id, name);
+    }
+
+    public boolean deleted() {
+        return name == null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.production.event;
+
+import java.util.Map;
+
+/**
+ * Fired inside the transaction that places a reservation ({@code held}) or ends one by commit,
+ * release or expiry (not {@code held}). {@code materials} are the units held per raw material id.
+ */
+public record ReservationChangedEvent(Long reservationId, Map<Long, Integer> materials, boolean held) {
+
+    public static ReservationChangedEvent held(Long reservationId, Map<Long, Integer> materials) {
+        return new ReservationChangedEvent(reservationId, materials, true);
+    }
+
+    public static ReservationChangedEvent ended(Long reservationId, Map<Long, Integer> materials) {
+        return new ReservationChangedEvent(reservationId, materials, false);
+    }
+}
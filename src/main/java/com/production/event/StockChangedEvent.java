@@ -0,0 +1,24 @@
+package com.production.event;
+
+/**
+ * Fired inside the transaction that changes the stock of a raw material.
+ * Observers that depend on committed data should use {@code during = TransactionPhase.AFTER_SUCCESS}.
+ * A newly created raw material is reported with {@code created} set and a previous quantity of 0.
+ * {@code version} is the row version the change produced, so an observer that also reads stock from
+ * the database can tell whether what it read already includes the change.
+ */
+public record StockChangedEvent(Long rawMaterialId, int previousQuantity, int stockQuantity, long version,
+                                boolean created) {
+
+    public StockChangedEvent(Long rawMaterialId, int previousQuantity, int stockQuantity, long version) {
+        this(rawMaterialId, previousQuantity, stockQuantity, version, false);
+    }
+
+    public static StockChangedEvent created(Long rawMaterialId, int stockQuantity, long version) {
+        return new StockChangedEvent(rawMaterialId, 0, stockQuantity, version, true);
+    }
+
+    public int delta() {
+        return stockQuantity - previousQuantity;
+    }
+}
@@ -0,0 +1,11 @@
+package com.production.event;
+
+import java.util.List;
+
+/**
+ * Fired inside the transaction of a raw material CSV import with every stock the import changed.
+ * Observers that only need to know something changed can rely on the
+ * {@link CatalogChangedEvent#all()} fired alongside it instead.
+ */
+public record StockImportedEvent(List<StockChangedEvent> changes) {
+}
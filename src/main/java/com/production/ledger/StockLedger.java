@@ -0,0 +1,305 @@
+package com.production.ledger;
+
+import com.production.dto.StockAsOfDTO;
+import com.production.entity.StockMovementEntity;
+import com.production.entity.StockSnapshotEntity;
+import com.production.event.StockChangedEvent;
+import com.production.event.StockImportedEvent;
+import com.production.repository.StockMovementRepository;
+import com.production.repository.StockMovementRepository.Movement;
+import com.production.repository.StockMovementRepository.Tail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only history of every committed stock change, from which the stock of a raw material at
+ * any past moment can be rebuilt.
+ *
+ * <p>Committed {@link StockChangedEvent}s and imports are queued, and a single writer thread appends
+ * everything queued so far with one insert in one transaction: while a batch is being written the
+ * next one collects, so the ledger costs the stock endpoints a queue insert, not a database round
+ * trip. The queue holds {@code stock-ledger.queue-capacity} movements; when the writer falls that far
+ * behind, committing threads wait for room rather than lose movements. Movements still queued when
+ * the process dies are lost; on startup every raw material whose stock differs from the ledger gets
+ * a {@code RECONCILED} movement, so the ledger agrees with the stock again from then on.
+ *
+ * <p>The writer stamps movements with strictly increasing times, never earlier than their commit, and
+ * after every {@code stock-ledger.snapshot-every} movements of a raw material it snapshots that
+ * material's stock in the same transaction. {@link #stockAsOf} therefore reads one snapshot and
+ * replays at most that many movements.
+ */
+@ApplicationScoped
+public class StockLedger {
+
+    private static final Logger LOG = Logger.getLogger(StockLedger.class);
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    @Inject
+    StockMovementRepository stockMovementRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "stock-ledger.snapshot-every", defaultValue = "1000")
+    int snapshotEvery;
+
+    @ConfigProperty(name = "stock-ledger.max-batch", defaultValue = "1000")
+    int maxBatch;
+
+    @ConfigProperty(name = "stock-ledger.queue-capacity", defaultValue = "100000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "stock-ledger.await-timeout", defaultValue = "5s")
+    Duration awaitTimeout;
+
+    private BlockingQueue<Movement> queue;
+    private final AtomicLong enqueued = new AtomicLong();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    // Movements written so far, guarded by lock.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private long writtenCount;
+
+    // Writer thread only.
+    private final Map<Long, Integer> sinceSnapshot = new HashMap<>();
+    private long lastMicros;
+
+    private Counter movements;
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        movements = Counter.builder("inventory.stock_ledger.movements").register(meterRegistry);
+        batchSize = DistributionSummary.builder("inventory.stock_ledger.batch_size").register(meterRegistry);
+        Gauge.builder("inventory.stock_ledger.pending", this, ledger -> ledger.queue.size())
+                .register(meterRegistry);
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        lastMicros = Math.max(micros(Instant.now()),
+                QuarkusTransaction.requiringNew().call(stockMovementRepository::lastOccurredAtMicros) + 1);
+        int reconciled = QuarkusTransaction.requiringNew().call(() -> stockMovementRepository.reconcile(lastMicros));
+        if (reconciled > 0) {
+            LOG.infof("Reconciled the stock ledger with the stock of %d raw materials", reconciled);
+        }
+
+        writer = new Thread(this::write, "stock-ledger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops the writer and writes whatever is still queued.
+     */
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(awaitTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Movement> rest = new ArrayList<>();
+        while (queue.drainTo(rest, maxBatch) > 0) {
+            try {
+                stamp(rest);
+                append(rest);
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Dropping %d unwritten stock movements on shutdown", rest.size() + queue.size());
+                return;
+            }
+            rest.clear();
+        }
+    }
+
+    void onStockChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockChangedEvent event) {
+        record(event, event.created() ? StockMovementEntity.Kind.CREATED : StockMovementEntity.Kind.CHANGED);
+    }
+
+    void onStockImported(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockImportedEvent event) {
+        for (StockChangedEvent change : event.changes()) {
+            record(change, change.created() ? StockMovementEntity.Kind.CREATED : StockMovementEntity.Kind.IMPORTED);
+        }
+    }
+
+    /**
+     * Waits until every movement committed before the call has been written, for up to
+     * {@code stock-ledger.await-timeout}. Returns {@code false} on timeout.
+     */
+    public boolean awaitWritten() {
+        long target = enqueued.get();
+        long nanos = awaitTimeout.toNanos();
+        lock.lock();
+        try {
+            while (writtenCount < target) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = written.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The stock of a raw material at {@code asOf}: its latest snapshot at or before then plus the
+     * movements since. Movements committed before the call are waited for first.
+     */
+    public StockAsOfDTO stockAsOf(Long rawMaterialId, Instant asOf) {
+        if (!awaitWritten()) {
+            LOG.warnf("Stock ledger is behind; stock of raw material %d as of %s may miss recent movements",
+                    rawMaterialId, asOf);
+        }
+        return QuarkusTransaction.requiringNew().call(() -> {
+            StockSnapshotEntity snapshot = stockMovementRepository.findLatestSnapshot(rawMaterialId, asOf);
+            Instant snapshotAt = snapshot == null ? null : snapshot.getTakenAt();
+            Tail tail = stockMovementRepository.sumMovements(rawMaterialId, snapshotAt, asOf);
+            if (snapshot == null && tail.movements() == 0) {
+                throw new NotFoundException("No stock history for raw material " + rawMaterialId + " as of " + asOf);
+            }
+            long base = snapshot == null ? 0 : snapshot.getStockQuantity();
+            return new StockAsOfDTO(rawMaterialId, asOf, base + tail.delta(), snapshotAt, tail.movements());
+        });
+    }
+
+    private void record(StockChangedEvent event, StockMovementEntity.Kind kind) {
+        if (event.delta() == 0 && !event.created()) {
+            return;
+        }
+        Movement movement = new Movement(event.rawMaterialId(), kind, event.delta(), event.stockQuantity(),
+                micros(Instant.now()));
+        try {
+            queue.put(movement);
+            enqueued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.errorf("Interrupted while queueing a stock movement of raw material %d", event.rawMaterialId());
+        }
+    }
+
+    private void write() {
+        List<Movement> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Movement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                appendUntilWritten(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private void appendUntilWritten(List<Movement> batch) throws InterruptedException {
+        stamp(batch);
+        while (true) {
+            try {
+                append(batch);
+                return;
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Writing %d stock movements failed, retrying", batch.size());
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void stamp(List<Movement> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Movement movement = batch.get(i);
+            lastMicros = Math.max(movement.occurredAtMicros(), lastMicros + 1);
+            batch.set(i, movement.at(lastMicros));
+        }
+    }
+
+    /**
+     * Appends the batch and snapshots every raw material it takes to {@code snapshotEvery} movements
+     * since its last snapshot, all in one transaction.
+     */
+    private void append(List<Movement> batch) {
+        Map<Long, Integer> touched = new HashMap<>();
+        for (Movement movement : batch) {
+            touched.merge(movement.rawMaterialId(), 1, Integer::sum);
+        }
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            List<Long> unknown = touched.keySet().stream().filter(id -> !sinceSnapshot.containsKey(id)).toList();
+            if (!unknown.isEmpty()) {
+                // Counted before this batch is inserted, from committed rows only, so safe to keep on retry.
+                Map<Long, Integer> counts = stockMovementRepository.countSinceSnapshot(unknown);
+                unknown.forEach(id -> sinceSnapshot.put(id, counts.getOrDefault(id, 0)));
+            }
+
+            stockMovementRepository.append(batch);
+
+            List<Long> due = touched.entrySet().stream()
+                    .filter(entry -> sinceSnapshot.get(entry.getKey()) + entry.getValue() >= snapshotEvery)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (!due.isEmpty()) {
+                stockMovementRepository.snapshot(due);
+            }
+        });
+
+        touched.forEach((id, count) -> {
+            int total = sinceSnapshot.get(id) + count;
+            sinceSnapshot.put(id, total >= snapshotEvery ? 0 : total);
+        });
+        movements.increment(batch.size());
+        batchSize.record(batch.size());
+
+        lock.lock();
+        try {
+            writtenCount += batch.size();
+            written.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+}
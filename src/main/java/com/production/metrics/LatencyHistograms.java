@@ -0,0 +1,34 @@
+package com.production.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Publishes p50, p99 and p99.9 for the per-route request timers Quarkus records as
+ * {@code http.server.requests}, tagged by method, route template and status.
+ */
+@Singleton
+public class LatencyHistograms {
+
+    static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    @Produces
+    @Singleton
+    public MeterFilter requestPercentiles() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(HTTP_SERVER_REQUESTS)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.5, 0.99, 0.999)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.production.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of the production plan engine's phases ({@code production.plan.phase}) for one
+ * {@code mode}, either a full rebuild or an incremental update.
+ */
+public final class PhaseTimers {
+
+    public final Phase load;
+    public final Phase stock;
+    public final Phase sort;
+    public final Phase walk;
+
+    public PhaseTimers(MeterRegistry registry, String mode) {
+        load = new Phase(registry, mode, "load");
+        stock = new Phase(registry, mode, "stock");
+        sort = new Phase(registry, mode, "sort");
+        walk = new Phase(registry, mode, "walk");
+    }
+
+    public record Phase(Timer timer) {
+
+        Phase(MeterRegistry registry, String mode, String phase) {
+            this(Timer.builder("production.plan.phase")
+                    .tag("mode", mode)
+                    .tag("phase", phase)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .register(registry));
+        }
+
+        /**
+         * Records the time since {@code since} and returns now, the start of the next phase.
+         */
+        public long lap(long since) {
+            long now = System.nanoTime();
+            timer.record(now - since, TimeUnit.NANOSECONDS);
+            return now;
+        }
+    }
+}
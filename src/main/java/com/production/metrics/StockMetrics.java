@@ -0,0 +1,61 @@
+package com.production.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Counts applied stock mutations per operation and the ones rejected for insufficient stock.
+ * Counters are created once, so recording is a single striped add.
+ */
+@ApplicationScoped
+public class StockMetrics {
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Counter set;
+    private Counter increase;
+    private Counter decrease;
+    private Counter movement;
+    private Counter insufficientStock;
+
+    @PostConstruct
+    void register() {
+        set = mutations("set");
+        increase = mutations("increase");
+        decrease = mutations("decrease");
+        movement = mutations("movement");
+        insufficientStock = Counter.builder("inventory.stock.rejections")
+                .tag("reason", "insufficient_stock")
+                .register(meterRegistry);
+    }
+
+    public void stockSet() {
+        set.increment();
+    }
+
+    public void stockIncreased() {
+        increase.increment();
+    }
+
+    public void stockDecreased() {
+        decrease.increment();
+    }
+
+    public void movementsApplied(int count) {
+        movement.increment(count);
+    }
+
+    public void insufficientStock(int count) {
+        insufficientStock.increment(count);
+    }
+
+    private Counter mutations(String operation) {
+        return Counter.builder("inventory.stock.mutations")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
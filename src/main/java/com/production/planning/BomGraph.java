@@ -0,0 +1,248 @@
+package com.production.planning;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multi-level bills of materials, exploded into raw material requirements and memoized per product.
+ *
+ * <p>Every product has its direct raw material lines, as dense material indexes like the
+ * {@link PlanningKernel} uses, and its component lines pointing at other products. {@link #requirements}
+ * flattens a product bottom-up: the products below it are visited in post-order on an explicit stack,
+ * each one is flattened once from the flattened vectors of its components, and every result is kept.
+ * A deep catalog is therefore exploded in time proportional to its edges, and afterwards a lookup is a
+ * map read. Replacing or removing a bill of materials clears the memo of that product and of every
+ * product above it, found through the reverse edges, and returns them so the caller can refresh them.
+ *
+ * <p>A product that cannot be produced flattens to {@link #NONE}: one without any lines, one using a
+ * component that is unknown or cannot be produced itself, and every product on a cycle. Requirements
+ * too large for a {@code long} count as cannot be produced as well. Not thread-safe.
+ */
+public final class BomGraph {
+
+    public static final Requirements NONE = new Requirements(new int[0], new long[0]);
+
+    private static final int[] NO_INTS = new int[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    // Dense accumulator for merge(), all zero between calls.
+    private long[] scratch = new long[16];
+    private int[] touched = new int[16];
+
+    public void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * Replaces the bill of materials of a product. Returns the products whose requirements this may
+     * change: the product itself and every known product that uses it, directly or not.
+     */
+    public Set<Long> put(long productId, int[] materials, int[] materialQuantities,
+                         long[] components, int[] componentQuantities) {
+        Node node = nodes.computeIfAbsent(productId, Node::new);
+        unlink(node);
+        node.known = true;
+        node.materials = materials;
+        node.materialQuantities = materialQuantities;
+        node.components = new Node[components.length];
+        node.componentQuantities = componentQuantities;
+        for (int i = 0; i < components.length; i++) {
+            Node component = nodes.computeIfAbsent(components[i], Node::new);
+            component.parents.add(node);
+            node.components[i] = component;
+        }
+        return invalidate(node);
+    }
+
+    /**
+     * Forgets a product. Returns the known products that used it, whose requirements are now
+     * {@link #NONE}.
+     */
+    public Set<Long> remove(long productId) {
+        Node node = nodes.get(productId);
+        if (node == null) {
+            return Set.of();
+        }
+        Set<Long> affected = invalidate(node);
+        affected.remove(productId);
+        unlink(node);
+        node.known = false;
+        if (node.parents.isEmpty()) {
+            nodes.remove(productId);
+        }
+        return affected;
+    }
+
+    /**
+     * The raw materials needed for one unit of the product, sorted by material index.
+     */
+    public Requirements requirements(long productId) {
+        Node root = nodes.get(productId);
+        if (root == null || !root.known) {
+            return NONE;
+        }
+        if (root.flattened != null) {
+            return root.flattened;
+        }
+
+        ArrayDeque<Node> path = new ArrayDeque<>();
+        enter(root, path);
+        while (!path.isEmpty()) {
+            Node node = path.peek();
+            if (node.cursor < node.components.length) {
+                Node component = node.components[node.cursor++];
+                if (component.flattened != null) {
+                    continue;
+                }
+                if (component.onPath) {
+                    node.cyclic = true;
+                } else if (!component.known) {
+                    component.flattened = NONE;
+                } else {
+                    enter(component, path);
+                }
+                continue;
+            }
+
+            path.pop();
+            node.onPath = false;
+            node.flattened = node.cyclic ? NONE : merge(node);
+            node.cyclic = false;
+        }
+        return root.flattened;
+    }
+
+    private static void enter(Node node, ArrayDeque<Node> path) {
+        node.onPath = true;
+        node.cursor = 0;
+        path.push(node);
+    }
+
+    private Set<Long> invalidate(Node start) {
+        Set<Long> affected = new HashSet<>();
+        Set<Node> seen = new HashSet<>();
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        seen.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            node.flattened = null;
+            if (node.known) {
+                affected.add(node.id);
+            }
+            for (Node parent : node.parents) {
+                if (seen.add(parent)) {
+                    queue.add(parent);
+                }
+            }
+        }
+        return affected;
+    }
+
+    private void unlink(Node node) {
+        for (Node component : node.components) {
+            component.parents.remove(node);
+            if (!component.known && component.parents.isEmpty()) {
+                nodes.remove(component.id);
+            }
+        }
+        node.materials = NO_INTS;
+        node.materialQuantities = NO_INTS;
+        node.components = NO_NODES;
+        node.componentQuantities = NO_INTS;
+    }
+
+    /**
+     * Flattens a node whose components are all flattened already.
+     */
+    private Requirements merge(Node node) {
+        if (node.materials.length == 0 && node.components.length == 0) {
+            return NONE;
+        }
+        for (Node component : node.components) {
+            if (component.flattened.isEmpty()) {
+                return NONE;
+            }
+        }
+
+        int count = 0;
+        try {
+            for (int i = 0; i < node.materials.length; i++) {
+                count = add(node.materials[i], node.materialQuantities[i], count);
+            }
+            for (int i = 0; i < node.components.length; i++) {
+                Requirements component = node.components[i].flattened;
+                long units = node.componentQuantities[i];
+                for (int j = 0; j < component.materials.length; j++) {
+                    count = add(component.materials[j], Math.multiplyExact(units, component.quantities[j]), count);
+                }
+            }
+
+            Arrays.sort(touched, 0, count);
+            int[] materials = Arrays.copyOf(touched, count);
+            long[] quantities = new long[count];
+            for (int i = 0; i < count; i++) {
+                quantities[i] = scratch[materials[i]];
+            }
+            return new Requirements(materials, quantities);
+        } catch (ArithmeticException e) {
+            return NONE;
+        } finally {
+            for (int i = 0; i < count; i++) {
+                scratch[touched[i]] = 0;
+            }
+        }
+    }
+
+    private int add(int material, long quantity, int count) {
+        if (material >= scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(material + 1, scratch.length * 2));
+        }
+        if (scratch[material] == 0) {
+            if (count == touched.length) {
+                touched = Arrays.copyOf(touched, count * 2);
+            }
+            touched[count++] = material;
+        }
+        scratch[material] = Math.addExact(scratch[material], quantity);
+        return count;
+    }
+
+    /**
+     * Units of each raw material per unit of product: {@code quantities[i]} of dense material
+     * {@code materials[i]}.
+     */
+    public record Requirements(int[] materials, long[] quantities) {
+
+        public boolean isEmpty() {
+            return materials.length == 0;
+        }
+    }
+
+    private static final class Node {
+
+        final long id;
+        final Set<Node> parents = new HashSet<>();
+        boolean known;
+        int[] materials = NO_INTS;
+        int[] materialQuantities = NO_INTS;
+        Node[] components = NO_NODES;
+        int[] componentQuantities = NO_INTS;
+        Requirements flattened;
+
+        // Traversal state of requirements().
+        int cursor;
+        boolean onPath;
+        boolean cyclic;
+
+        Node(long id) {
+            this.id = id;
+        }
+    }
+}
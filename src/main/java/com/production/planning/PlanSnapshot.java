@@ -0,0 +1,9 @@
+package com.production.planning;
+
+import com.production.dto.ProductionPlanDTO;
+
+/**
+ * A published production plan and the inventory version it reflects.
+ */
+public record PlanSnapshot(long version, ProductionPlanDTO plan) {
+}
@@ -0,0 +1,456 @@
+package com.production.planning;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, read-only view of the catalog used by the planner.
+ *
+ * <p>Products are rows sorted by planning priority (highest price first, then id). Their bills of
+ * materials are stored as a CSR sparse matrix: the lines of row {@code r} live in
+ * {@code columns[rowStart[r] .. rowStart[r + 1])}, where each column is a dense raw material index
+ * and {@code quantities} holds the units required per product. Stock vectors are plain
+ * {@code long[]} indexed by the same dense material index, so the calculations below never box
+ * or allocate.
+ *
+ * <p>The same matrix is also kept transposed, as the where-used index: the rows consuming material
+ * {@code m} live in {@code consumerRows[consumerStart[m] .. consumerStart[m + 1])}, in row order,
+ * with their units in {@code consumerQuantities}. {@link #replan} uses it to revisit only the rows a
+ * stock change can reach.
+ */
+public final class PlanningKernel {
+
+    public static final int NO_CONSUMER = Integer.MAX_VALUE;
+
+    private static final Comparator<Product> PRIORITY =
+            Comparator.comparing(Product::price).reversed()
+                    .thenComparingLong(Product::id);
+
+    private final long[] productIds;
+    private final String[] names;
+    private final BigDecimal[] prices;
+    private final int[] rowStart;
+    private final int[] columns;
+    private final long[] quantities;
+    private final int[] consumerStart;
+    private final int[] consumerRows;
+    private final long[] consumerQuantities;
+    private final Map<Long, Integer> rows;
+
+    private PlanningKernel(List<Product> sorted, int materialCount) {
+        int size = sorted.size();
+        int lines = 0;
+        for (Product product : sorted) {
+            lines += product.materials().length;
+        }
+
+        productIds = new long[size];
+        names = new String[size];
+        prices = new BigDecimal[size];
+        rowStart = new int[size + 1];
+        columns = new int[lines];
+        quantities = new long[lines];
+        consumerStart = new int[materialCount + 1];
+        consumerRows = new int[lines];
+        consumerQuantities = new long[lines];
+        rows = new HashMap<>(Math.max(16, size * 2));
+
+        int line = 0;
+        for (int row = 0; row < size; row++) {
+            Product product = sorted.get(row);
+            productIds[row] = product.id();
+            names[row] = product.name();
+            prices[row] = product.price();
+            rows.put(product.id(), row);
+            rowStart[row] = line;
+
+            for (int j = 0; j < product.materials().length; j++) {
+                int material = product.materials()[j];
+                columns[line] = material;
+                quantities[line] = product.quantities()[j];
+                consumerStart[material + 1]++;
+                line++;
+            }
+        }
+        rowStart[size] = line;
+
+        for (int material = 0; material < materialCount; material++) {
+            consumerStart[material + 1] += consumerStart[material];
+        }
+        int[] next = Arrays.copyOf(consumerStart, materialCount);
+        for (int row = 0; row < size; row++) {
+            for (line = rowStart[row]; line < rowStart[row + 1]; line++) {
+                int slot = next[columns[line]]++;
+                consumerRows[slot] = row;
+                consumerQuantities[slot] = quantities[line];
+            }
+        }
+    }
+
+    /**
+     * Sorts the products by priority and flattens their bills of materials.
+     * Every material index must be lower than {@code materialCount}.
+     */
+    public static PlanningKernel compile(Collection<Product> products, int materialCount) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(PRIORITY);
+        return new PlanningKernel(sorted, materialCount);
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public int lineCount() {
+        return columns.length;
+    }
+
+    public int rowOf(long productId) {
+        Integer row = rows.get(productId);
+        return row == null ? -1 : row;
+    }
+
+    public long productId(int row) {
+        return productIds[row];
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    public BigDecimal price(int row) {
+        return prices[row];
+    }
+
+    /**
+     * First row whose bill of materials uses the material, or {@link #NO_CONSUMER}.
+     */
+    public int firstConsumer(int material) {
+        if (material >= consumerStart.length - 1 || consumerStart[material] == consumerStart[material + 1]) {
+            return NO_CONSUMER;
+        }
+        return consumerRows[consumerStart[material]];
+    }
+
+    /**
+     * Rows whose exploded bill of materials uses the material, in row order, are
+     * {@link #consumerRow} of {@code consumersFrom(material) .. consumersTo(material)}.
+     */
+    public int consumersFrom(int material) {
+        return material < consumerStart.length - 1 ? consumerStart[material] : 0;
+    }
+
+    public int consumersTo(int material) {
+        return material < consumerStart.length - 1 ? consumerStart[material + 1] : 0;
+    }
+
+    public int consumerRow(int consumer) {
+        return consumerRows[consumer];
+    }
+
+    public long consumerQuantity(int consumer) {
+        return consumerQuantities[consumer];
+    }
+
+    public int maxQuantity(int row, long[] stock) {
+        int from = rowStart[row];
+        int to = rowStart[row + 1];
+        if (from == to) {
+            return 0;
+        }
+
+        long maxQuantity = Long.MAX_VALUE;
+        for (int line = from; line < to; line++) {
+            long available = stock[columns[line]];
+            if (available <= 0) {
+                return 0;
+            }
+            maxQuantity = Math.min(maxQuantity, available / quantities[line]);
+        }
+
+        return (int) Math.min(maxQuantity, Integer.MAX_VALUE);
+    }
+
+    public boolean canProduce(int row, long quantity, long[] stock) {
+        int from = rowStart[row];
+        int to = rowStart[row + 1];
+        if (from == to) {
+            return false;
+        }
+
+        // Divides rather than multiplies, so huge multi-level quantities cannot overflow.
+        for (int line = from; line < to; line++) {
+            long available = stock[columns[line]];
+            if (available < 0 || available / quantities[line] < quantity) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Greedy walk from {@code start}: each row gets the most units {@code remaining} allows and
+     * consumes them. Writes the quantity of every visited row into {@code planned}.
+     */
+    public void allocate(int start, int[] planned, long[] remaining) {
+        for (int row = start; row < productIds.length; row++) {
+            take(row, planned, remaining);
+        }
+    }
+
+    /**
+     * The same greedy walk over every row, in {@code order} rather than row order.
+     */
+    public void allocate(int[] order, int[] planned, long[] remaining) {
+        for (int row : order) {
+            take(row, planned, remaining);
+        }
+    }
+
+    private void take(int row, int[] planned, long[] remaining) {
+        int quantity = maxQuantity(row, remaining);
+        planned[row] = quantity;
+        if (quantity == 0) {
+            return;
+        }
+        for (int line = rowStart[row]; line < rowStart[row + 1]; line++) {
+            remaining[columns[line]] -= quantities[line] * quantity;
+        }
+    }
+
+    /**
+     * Brings a full walk up to date after the stock of {@code materials[0 .. count)} changed in both
+     * {@code stock} and {@code remaining}, and returns the rows whose quantity changed, in row order.
+     *
+     * <p>Only rows whose available stock differs from the previous walk can plan differently: the
+     * consumers of a changed material, and the later consumers of any material a replanned row
+     * takes more or less of. Those rows are visited in row order from a heap and everything else is
+     * skipped. A visited row's available stock is {@code stock} minus what the consumers before it
+     * take, summed by a cursor that only moves forward through the where-used index, so the cost is
+     * bounded by the consumers of the materials involved instead of the whole suffix.
+     */
+    public int[] replan(int[] materials, int count, int[] planned, long[] stock, long[] remaining, Scratch scratch) {
+        scratch.begin(consumerStart.length - 1, productIds.length);
+        for (int i = 0; i < count; i++) {
+            if (materials[i] < consumerStart.length - 1) {
+                scratch.queueConsumers(this, materials[i], consumerStart[materials[i]]);
+            }
+        }
+
+        int[] changed = new int[8];
+        int changedCount = 0;
+        while (scratch.heapSize > 0) {
+            int row = scratch.poll();
+            int from = rowStart[row];
+            int to = rowStart[row + 1];
+
+            // Every line is read, even past a shortage, so each cursor ends on this row.
+            long quantity = from == to ? 0 : Long.MAX_VALUE;
+            for (int line = from; line < to; line++) {
+                long available = scratch.availableAt(this, columns[line], row, planned, stock);
+                quantity = available <= 0 ? 0 : Math.min(quantity, available / quantities[line]);
+            }
+            int next = (int) Math.min(quantity, Integer.MAX_VALUE);
+            if (next == planned[row]) {
+                continue;
+            }
+
+            long taken = (long) next - planned[row];
+            planned[row] = next;
+            for (int line = from; line < to; line++) {
+                remaining[columns[line]] -= quantities[line] * taken;
+                // Consumers after this row now see a different amount of the material.
+                scratch.queueConsumers(this, columns[line], scratch.cursor[columns[line]] + 1);
+            }
+            if (changedCount == changed.length) {
+                changed = Arrays.copyOf(changed, changedCount * 2);
+            }
+            changed[changedCount++] = row;
+        }
+        return Arrays.copyOf(changed, changedCount);
+    }
+
+    /**
+     * The walk order if {@code rows[i]} were priced {@code newPrices[i]}. The other rows keep their
+     * relative order, so only the repriced ones are sorted and then merged in, in
+     * {@code O(size + k log k)} for {@code k} repriced rows. Rows must be distinct.
+     */
+    public int[] order(int[] rows, BigDecimal[] newPrices) {
+        int size = productIds.length;
+        BigDecimal[] repriced = new BigDecimal[size];
+        Integer[] moved = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            repriced[rows[i]] = newPrices[i];
+            moved[i] = rows[i];
+        }
+        Arrays.sort(moved, (a, b) -> compare(a, repriced[a], b, repriced[b]));
+
+        int[] order = new int[size];
+        int next = 0;
+        int m = 0;
+        for (int row = 0; row < size; row++) {
+            if (repriced[row] != null) {
+                continue;
+            }
+            while (m < moved.length && compare(moved[m], repriced[moved[m]], row, prices[row]) < 0) {
+                order[next++] = moved[m++];
+            }
+            order[next++] = row;
+        }
+        while (m < moved.length) {
+            order[next++] = moved[m++];
+        }
+        return order;
+    }
+
+    /**
+     * {@link #PRIORITY} for rows at the given prices.
+     */
+    private int compare(int a, BigDecimal priceA, int b, BigDecimal priceB) {
+        int byPrice = priceB.compareTo(priceA);
+        return byPrice != 0 ? byPrice : Long.compare(productIds[a], productIds[b]);
+    }
+
+    /**
+     * Undoes {@link #allocate(int, int[], long[])} from {@code start} on, giving the stock consumed by
+     * those rows back to {@code remaining}. {@code planned} is left untouched.
+     */
+    public void release(int start, int[] planned, long[] remaining) {
+        for (int row = start; row < productIds.length; row++) {
+            int quantity = planned[row];
+            if (quantity == 0) {
+                continue;
+            }
+            for (int line = rowStart[row]; line < rowStart[row + 1]; line++) {
+                remaining[columns[line]] += quantities[line] * quantity;
+            }
+        }
+    }
+
+    /**
+     * Working memory of {@link #replan}, reused across calls so a small change allocates nothing
+     * proportional to the catalog. Entries are valid only when stamped with the current call's epoch.
+     * Not thread-safe.
+     */
+    public static final class Scratch {
+
+        private int epoch;
+        private int[] trackedEpoch = new int[0];
+        private int[] cursor = new int[0];
+        private long[] available = new long[0];
+        private int[] queuedEpoch = new int[0];
+        private int[] queuedFrom = new int[0];
+        private int[] rowEpoch = new int[0];
+        private int[] heap = new int[16];
+        private int heapSize;
+
+        void begin(int materialCount, int rowCount) {
+            if (trackedEpoch.length < materialCount) {
+                trackedEpoch = Arrays.copyOf(trackedEpoch, materialCount);
+                cursor = Arrays.copyOf(cursor, materialCount);
+                available = Arrays.copyOf(available, materialCount);
+                queuedEpoch = Arrays.copyOf(queuedEpoch, materialCount);
+                queuedFrom = Arrays.copyOf(queuedFrom, materialCount);
+            }
+            if (rowEpoch.length < rowCount) {
+                rowEpoch = Arrays.copyOf(rowEpoch, rowCount);
+            }
+            if (++epoch == 0) {
+                Arrays.fill(trackedEpoch, 0);
+                Arrays.fill(queuedEpoch, 0);
+                Arrays.fill(rowEpoch, 0);
+                epoch = 1;
+            }
+            heapSize = 0;
+        }
+
+        /**
+         * Stock of the material left for {@code row}, which must consume it: moves the cursor to the
+         * row's own entry, subtracting what the consumers passed on the way take. A material is
+         * followed from its first consumer, with everything in stock, the first time it is read.
+         */
+        long availableAt(PlanningKernel kernel, int material, int row, int[] planned, long[] stock) {
+            if (trackedEpoch[material] != epoch) {
+                trackedEpoch[material] = epoch;
+                cursor[material] = kernel.consumerStart[material];
+                available[material] = stock[material];
+            }
+            int at = cursor[material];
+            long left = available[material];
+            while (kernel.consumerRows[at] < row) {
+                left -= kernel.consumerQuantities[at] * planned[kernel.consumerRows[at]];
+                at++;
+            }
+            cursor[material] = at;
+            available[material] = left;
+            return left;
+        }
+
+        /**
+         * Queues the consumers of the material from entry {@code from} on. Each entry is queued at
+         * most once per call, since the entries already queued are always a suffix.
+         */
+        void queueConsumers(PlanningKernel kernel, int material, int from) {
+            if (queuedEpoch[material] != epoch) {
+                queuedEpoch[material] = epoch;
+                queuedFrom[material] = kernel.consumerStart[material + 1];
+            }
+            for (int at = from; at < queuedFrom[material]; at++) {
+                push(kernel.consumerRows[at]);
+            }
+            queuedFrom[material] = Math.min(queuedFrom[material], from);
+        }
+
+        private void push(int row) {
+            if (rowEpoch[row] == epoch) {
+                return;
+            }
+            rowEpoch[row] = epoch;
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int at = heapSize++;
+            while (at > 0 && heap[(at - 1) >>> 1] > row) {
+                heap[at] = heap[(at - 1) >>> 1];
+                at = (at - 1) >>> 1;
+            }
+            heap[at] = row;
+        }
+
+        int poll() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            int at = 0;
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[child] >= last) {
+                    break;
+                }
+                heap[at] = heap[child];
+                at = child;
+            }
+            heap[at] = last;
+            return top;
+        }
+    }
+
+    /**
+     * A product as the kernel sees it: its bill of materials, exploded down to raw materials, uses
+     * dense material indexes.
+     */
+    public record Product(long id, String name, BigDecimal price, int[] materials, long[] quantities) {
+    }
+}
@@ -0,0 +1,817 @@
+package com.production.planning;
+
+import com.production.dto.ProductionItemDTO;
+import com.production.dto.PlanChangesDTO;
+import com.production.dto.ProductionPlanDTO;
+import com.production.dto.WhereUsedDTO;
+import com.production.entity.ProductEntity;
+import com.production.entity.ProductRawMaterialEntity;
+import com.production.entity.RawMaterialEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.ReservationChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.metrics.PhaseTimers;
+import com.production.repository.ProductComponentRepository;
+import com.production.repository.ProductComponentRepository.Edge;
+import com.production.repository.ProductRepository;
+import com.production.repository.RawMaterialRepository;
+import com.production.reservation.ReservationLedger;
+import com.production.service.InventoryVersion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the production plan in memory and updates it as stock and bills of materials change.
+ *
+ * <p>The plan is the greedy walk of the {@link PlanningKernel} over products ordered by price.
+ * A change only affects the walk from the first row that touches the changed data, so the engine
+ * hands the stock consumed by that suffix back to {@code remaining} and walks the suffix again.
+ * The prefix is never revisited. When only stock changed, not even the whole suffix is walked:
+ * {@link PlanningKernel#replan} follows the where-used index from the changed materials and revisits
+ * just the rows whose available stock actually moved.
+ *
+ * <p>Bills of materials may use other products as components. The kernel only sees raw materials:
+ * every product is exploded through the {@link BomGraph}, which memoizes each product's flattened
+ * requirements and, when a bill of materials changes, hands back the products above it whose rows
+ * have to be recompiled.
+ *
+ * <p>Stock here is what is available to promise: units held by active reservations are left out,
+ * so the plan, {@link #productionFor} and {@link #canProduce} only count stock nobody has claimed.
+ * Held units are counted from the reservation changes the engine applies, not read from the
+ * {@link ReservationLedger}: the ledger holds units before the reserving transaction commits, while
+ * the change that holds them here may still be queued.
+ *
+ * <p>Committed changes bump the {@link InventoryVersion} and are queued; a single background
+ * worker applies everything queued so far in one pass and publishes a new {@link PlanSnapshot}.
+ * Readers get the last snapshot without any computation and decide themselves how stale it may be.
+ * A change is queued only after it committed, so a full rebuild may load one that is still queued;
+ * the rebuild keeps the row version of the stock it loaded and queued stock changes up to that
+ * version are not added again.
+ *
+ * <p>Every published version records which plan lines it added, changed or removed, by product, in
+ * a log of the last {@code production-plan.changes.retained} line changes. {@link #changesSince}
+ * folds the log after a version into one delta; a version older than the log, or one from before the
+ * last full rebuild, gets the whole plan instead.
+ *
+ * <p>Every pass is timed per phase ({@code production.plan.phase}): loading from the database,
+ * applying stock, compiling (sorting) the kernel and the greedy walk, tagged by whether it was a full
+ * rebuild or an incremental update.
+ */
+@ApplicationScoped
+public class ProductionPlanEngine {
+
+    private static final Logger LOG = Logger.getLogger(ProductionPlanEngine.class);
+
+    private static final long NOT_LOADED = -1;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    ProductComponentRepository productComponentRepository;
+
+    @Inject
+    RawMaterialRepository rawMaterialRepository;
+
+    @Inject
+    InventoryVersion inventoryVersion;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "production-plan.changes.retained", defaultValue = "10000")
+    int changesRetained;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "production-plan");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Queued changes, guarded by pendingLock.
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private List<Object> pending = new ArrayList<>();
+    private long pendingVersion;
+    private long pendingSince;
+    private long applyingSince;
+
+    // Planning state, guarded by lock.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private final Map<Long, Integer> materialIndex = new HashMap<>();
+    private long[] materialIds = new long[16];
+    // Row version of each material's stock as the last rebuild loaded it, NOT_LOADED if it did not.
+    private long[] loadedVersions = new long[16];
+    // Units held by reservations per raw material id, as of the reservation changes applied so far.
+    private final Map<Long, Long> held = new HashMap<>();
+    private final BomGraph bom = new BomGraph();
+    private final Map<Long, PlanningKernel.Product> products = new HashMap<>();
+    private PlanningKernel kernel = PlanningKernel.compile(List.of(), 0);
+    private final PlanningKernel.Scratch replanScratch = new PlanningKernel.Scratch();
+    private long[] stock = new long[16];
+    private long[] remaining = new long[16];
+    private int[] planned = new int[0];
+    private ProductionItemDTO[] items = new ProductionItemDTO[0];
+    private BigDecimal totalValue = BigDecimal.ZERO;
+    private ScenarioBase scenarioBase;
+
+    // Plan line changes, guarded by lock: the line each product had before this pass, and the log.
+    private final Map<Long, ProductionItemDTO> linesBefore = new HashMap<>();
+    private final ArrayDeque<LineChange> changes = new ArrayDeque<>();
+    private long changesHorizon;
+
+    private volatile PlanSnapshot snapshot = new PlanSnapshot(0, new ProductionPlanDTO());
+
+    private PhaseTimers rebuildTimers;
+    private PhaseTimers incrementalTimers;
+
+    @PostConstruct
+    void registerMetrics() {
+        rebuildTimers = new PhaseTimers(meterRegistry, "rebuild");
+        incrementalTimers = new PhaseTimers(meterRegistry, "incremental");
+
+        Gauge.builder("catalog.size", this, engine -> engine.catalogSize(CatalogPart.PRODUCTS))
+                .tag("type", "products")
+                .register(meterRegistry);
+        Gauge.builder("catalog.size", this, engine -> engine.catalogSize(CatalogPart.RAW_MATERIALS))
+                .tag("type", "raw_materials")
+                .register(meterRegistry);
+        Gauge.builder("catalog.size", this, engine -> engine.catalogSize(CatalogPart.BOM_LINES))
+                .tag("type", "bom_lines")
+                .register(meterRegistry);
+    }
+
+    public PlanSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * How long the oldest committed change has been waiting to be reflected in the snapshot.
+     */
+    public Duration unappliedFor() {
+        pendingLock.lock();
+        try {
+            long since = applyingSince != 0 ? applyingSince : pendingSince;
+            return since == 0 ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - since);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a snapshot at least as recent as {@code version} is published or the timeout expires.
+     */
+    public PlanSnapshot awaitVersion(long version, Duration timeout) {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (snapshot.version() < version && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+            }
+            return snapshot;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * What the product could yield on its own from the stock on hand, or {@code null} if it is unknown.
+     */
+    public ProductionItemDTO productionFor(Long productId) {
+        lock.lock();
+        try {
+            int row = kernel.rowOf(productId);
+            if (row < 0) {
+                return null;
+            }
+            return new ProductionItemDTO(
+                    productId,
+                    kernel.name(row),
+                    kernel.maxQuantity(row, stock),
+                    kernel.price(row)
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean canProduce(Long productId, int quantity) {
+        lock.lock();
+        try {
+            int row = kernel.rowOf(productId);
+            return row >= 0 && kernel.canProduce(row, quantity, stock);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The planning state of the published snapshot, copied once per version and shared by every
+     * scenario evaluated against it.
+     */
+    public ScenarioBase scenarioBase() {
+        lock.lock();
+        try {
+            if (scenarioBase == null) {
+                scenarioBase = new ScenarioBase(snapshot.version(), kernel, Map.copyOf(materialIndex),
+                        Arrays.copyOf(stock, materialIndex.size()), totalValue);
+            }
+            return scenarioBase;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Products whose exploded bill of materials uses the raw material, in planning order, with the
+     * units each needs per unit produced and its quantity in the plan. Empty if nothing uses it.
+     */
+    public List<WhereUsedDTO> whereUsed(Long rawMaterialId) {
+        lock.lock();
+        try {
+            Integer material = materialIndex.get(rawMaterialId);
+            if (material == null) {
+                return List.of();
+            }
+            List<WhereUsedDTO> products = new ArrayList<>();
+            for (int consumer = kernel.consumersFrom(material); consumer < kernel.consumersTo(material); consumer++) {
+                int row = kernel.consumerRow(consumer);
+                products.add(new WhereUsedDTO(kernel.productId(row), kernel.name(row),
+                        kernel.consumerQuantity(consumer), planned[row]));
+            }
+            return products;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The plan lines added, changed and removed after version {@code since}, up to the published
+     * snapshot, or the whole plan if the log no longer reaches back that far.
+     */
+    public PlanChangesDTO changesSince(long since) {
+        lock.lock();
+        try {
+            PlanSnapshot current = snapshot;
+            if (since < changesHorizon || since > current.version()) {
+                return PlanChangesDTO.full(since, current.version(), current.plan());
+            }
+
+            // Walks back to the first change after since; the oldest before wins, the newest after.
+            Map<Long, ProductionItemDTO[]> lines = new LinkedHashMap<>();
+            Iterator<LineChange> newestFirst = changes.descendingIterator();
+            while (newestFirst.hasNext()) {
+                LineChange change = newestFirst.next();
+                if (change.version() <= since) {
+                    break;
+                }
+                lines.computeIfAbsent(change.productId(), id -> new ProductionItemDTO[]{null, change.after()})[0] =
+                        change.before();
+            }
+
+            List<ProductionItemDTO> added = new ArrayList<>();
+            List<ProductionItemDTO> changed = new ArrayList<>();
+            List<Long> removed = new ArrayList<>();
+            lines.forEach((productId, line) -> {
+                if (line[0] == null && line[1] != null) {
+                    added.add(line[1]);
+                } else if (line[1] == null && line[0] != null) {
+                    removed.add(productId);
+                } else if (line[0] != null && !sameLine(line[0], line[1])) {
+                    changed.add(line[1]);
+                }
+            });
+            return PlanChangesDTO.delta(since, current.version(), added, changed, removed,
+                    current.plan().getTotalValue());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Units of each raw material needed for one unit of the product, with every component exploded,
+     * or {@code null} if the product is unknown. Empty when it cannot be produced at all.
+     */
+    public Map<Long, Long> requirements(Long productId) {
+        lock.lock();
+        try {
+            if (!products.containsKey(productId)) {
+                return null;
+            }
+            BomGraph.Requirements requirements = bom.requirements(productId);
+            Map<Long, Long> units = new HashMap<>();
+            for (int i = 0; i < requirements.materials().length; i++) {
+                units.put(materialIds[requirements.materials()[i]], requirements.quantities()[i]);
+            }
+            return units;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int catalogSize(CatalogPart part) {
+        lock.lock();
+        try {
+            return switch (part) {
+                case PRODUCTS -> kernel.size();
+                case RAW_MATERIALS -> materialIndex.size();
+                case BOM_LINES -> kernel.lineCount();
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        lock.lock();
+        try {
+            // The reservations recovered on startup, which no queued change holds.
+            held.putAll(reservationLedger.heldUnits());
+        } finally {
+            lock.unlock();
+        }
+        rebuild(List.of(), inventoryVersion.current());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    void onStockChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockChangedEvent event) {
+        enqueue(event);
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        enqueue(event);
+    }
+
+    void onReservationChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ReservationChangedEvent event) {
+        enqueue(event);
+    }
+
+    private void enqueue(Object change) {
+        pendingLock.lock();
+        try {
+            pendingVersion = inventoryVersion.increment();
+            if (pending.isEmpty()) {
+                pendingSince = System.nanoTime();
+            }
+            pending.add(change);
+        } finally {
+            pendingLock.unlock();
+        }
+
+        if (scheduled.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        scheduled.set(false);
+
+        List<Object> batch;
+        long version;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            version = pendingVersion;
+            applyingSince = pendingSince;
+            pending = new ArrayList<>();
+            pendingSince = 0;
+        } finally {
+            pendingLock.unlock();
+        }
+
+        try {
+            hold(batch);
+            apply(batch, version);
+        } catch (RuntimeException e) {
+            LOG.error("Incremental plan update failed, rebuilding the plan", e);
+            rebuild(batch, version);
+        } finally {
+            pendingLock.lock();
+            try {
+                applyingSince = 0;
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+    }
+
+    private void apply(List<Object> batch, long version) {
+        long lap = System.nanoTime();
+        Set<Long> changedProducts = new HashSet<>();
+        for (Object change : batch) {
+            if (change instanceof CatalogChangedEvent catalogChange) {
+                if (catalogChange.affectsAll()) {
+                    // The rebuild loads every catalog change of the batch and applies its stock changes.
+                    rebuild(batch, version);
+                    return;
+                }
+                changedProducts.add(catalogChange.productId());
+            }
+        }
+
+        Catalog changed = changedProducts.isEmpty()
+                ? new Catalog(List.of(), List.of(), List.of())
+                : QuarkusTransaction.requiringNew().call(() -> new Catalog(
+                        List.of(),
+                        productRepository.findByIdsWithRawMaterials(changedProducts),
+                        productComponentRepository.findEdgesOf(changedProducts)
+                ));
+        lap = incrementalTimers.load.lap(lap);
+
+        lock.lock();
+        try {
+            int[] changedMaterials = applyStock(batch, true);
+            lap = incrementalTimers.stock.lap(lap);
+
+            // Changed products and every product that uses one of them as a component.
+            Set<Long> affected = new HashSet<>(changedProducts);
+            Map<Long, ProductEntity> loaded = new HashMap<>();
+            Map<Long, List<Edge>> edges = edgesByProduct(changed.edges());
+            for (ProductEntity entity : changed.products()) {
+                loaded.put(entity.getId(), entity);
+            }
+            for (Long productId : changedProducts) {
+                ProductEntity entity = loaded.get(productId);
+                if (entity == null) {
+                    products.remove(productId);
+                    affected.addAll(bom.remove(productId));
+                } else {
+                    affected.addAll(putBom(entity, edges.getOrDefault(productId, List.of())));
+                }
+            }
+            for (Long productId : affected) {
+                ProductEntity entity = loaded.get(productId);
+                PlanningKernel.Product current = products.get(productId);
+                if (entity != null) {
+                    products.put(productId, toProduct(productId, entity.getName(), entity.getPrice()));
+                } else if (current != null) {
+                    products.put(productId, toProduct(productId, current.name(), current.price()));
+                }
+            }
+
+            if (changedProducts.isEmpty()) {
+                for (int row : kernel.replan(changedMaterials, changedMaterials.length, planned, stock, remaining,
+                        replanScratch)) {
+                    refreshItem(row);
+                }
+                publish(version);
+                incrementalTimers.walk.lap(lap);
+                return;
+            }
+
+            PlanningKernel previous = kernel;
+            PlanningKernel next = PlanningKernel.compile(products.values(), materialIndex.size());
+            lap = incrementalTimers.sort.lap(lap);
+
+            // Rows before every changed product's old and new position are the same in both kernels.
+            int start = next.size();
+            for (Long productId : affected) {
+                start = Math.min(start, Math.min(rowOrEnd(previous, productId), rowOrEnd(next, productId)));
+            }
+            for (int material : changedMaterials) {
+                start = Math.min(start, next.firstConsumer(material));
+            }
+
+            previous.release(start, planned, remaining);
+            for (int row = start; row < items.length; row++) {
+                if (items[row] != null) {
+                    linesBefore.putIfAbsent(items[row].getProductId(), items[row]);
+                    totalValue = totalValue.subtract(items[row].getTotalValue());
+                    items[row] = null;
+                }
+            }
+            kernel = next;
+            planned = Arrays.copyOf(planned, next.size());
+            items = Arrays.copyOf(items, next.size());
+
+            kernel.allocate(start, planned, remaining);
+            refreshItems(start);
+            publish(version);
+            incrementalTimers.walk.lap(lap);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reloads everything from the database and applies the stock changes of {@code batch} the load
+     * did not see yet.
+     */
+    private void rebuild(List<Object> batch, long version) {
+        long lap = System.nanoTime();
+        Catalog catalog = QuarkusTransaction.requiringNew().call(() -> new Catalog(
+                rawMaterialRepository.listAll(),
+                productRepository.findAllWithRawMaterials(),
+                productComponentRepository.findEdges()
+        ));
+        lap = rebuildTimers.load.lap(lap);
+
+        lock.lock();
+        try {
+            int capacity = Math.max(16, catalog.materials().size());
+            materialIndex.clear();
+            materialIds = new long[capacity];
+            loadedVersions = new long[capacity];
+            stock = new long[capacity];
+            remaining = new long[capacity];
+            for (RawMaterialEntity material : catalog.materials()) {
+                int index = indexOf(material.getId(), material.getStockQuantity() - held.getOrDefault(material.getId(), 0L));
+                loadedVersions[index] = material.getVersion();
+            }
+            // Holds are already in the held units above.
+            applyStock(batch, false);
+
+            bom.clear();
+            Map<Long, List<Edge>> edges = edgesByProduct(catalog.edges());
+            for (ProductEntity entity : catalog.products()) {
+                putBom(entity, edges.getOrDefault(entity.getId(), List.of()));
+            }
+            products.clear();
+            for (ProductEntity entity : catalog.products()) {
+                products.put(entity.getId(), toProduct(entity.getId(), entity.getName(), entity.getPrice()));
+            }
+            lap = rebuildTimers.stock.lap(lap);
+
+            kernel = PlanningKernel.compile(products.values(), materialIndex.size());
+            lap = rebuildTimers.sort.lap(lap);
+            planned = new int[kernel.size()];
+            items = new ProductionItemDTO[kernel.size()];
+            totalValue = BigDecimal.ZERO;
+
+            kernel.allocate(0, planned, remaining);
+            refreshItems(0);
+            // Lines are not compared across a rebuild: clients older than it resync in full.
+            linesBefore.clear();
+            changes.clear();
+            publish(version);
+            changesHorizon = snapshot.version();
+            rebuildTimers.walk.lap(lap);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshItems(int start) {
+        for (int row = start; row < planned.length; row++) {
+            refreshItem(row);
+        }
+    }
+
+    private void refreshItem(int row) {
+        ProductionItemDTO item = items[row];
+        int current = item == null ? 0 : item.getQuantity();
+        if (current == planned[row]) {
+            return;
+        }
+
+        long productId = kernel.productId(row);
+        if (!linesBefore.containsKey(productId)) {
+            linesBefore.put(productId, item);
+        }
+        if (item != null) {
+            totalValue = totalValue.subtract(item.getTotalValue());
+        }
+        item = planned[row] > 0
+                ? new ProductionItemDTO(kernel.productId(row), kernel.name(row), planned[row], kernel.price(row))
+                : null;
+        if (item != null) {
+            totalValue = totalValue.add(item.getTotalValue());
+        }
+        items[row] = item;
+    }
+
+    private void publish(long version) {
+        long next = Math.max(version, snapshot.version());
+        recordChanges(next);
+
+        List<ProductionItemDTO> planItems = new ArrayList<>();
+        for (ProductionItemDTO item : items) {
+            if (item != null) {
+                planItems.add(item);
+            }
+        }
+
+        ProductionPlanDTO plan = new ProductionPlanDTO();
+        plan.setProductionItems(planItems);
+        plan.setTotalValue(totalValue);
+        snapshot = new PlanSnapshot(next, plan);
+        scenarioBase = null;
+        published.signalAll();
+    }
+
+    /**
+     * Logs the line of every product touched by this pass that ended up different, and forgets
+     * the oldest entries beyond {@code production-plan.changes.retained}.
+     */
+    private void recordChanges(long version) {
+        for (Map.Entry<Long, ProductionItemDTO> line : linesBefore.entrySet()) {
+            int row = kernel.rowOf(line.getKey());
+            ProductionItemDTO after = row < 0 ? null : items[row];
+            ProductionItemDTO before = line.getValue();
+            if (before == null ? after != null : !sameLine(before, after)) {
+                changes.addLast(new LineChange(version, line.getKey(), before, after));
+            }
+        }
+        linesBefore.clear();
+
+        while (changes.size() > changesRetained) {
+            changesHorizon = Math.max(changesHorizon, changes.removeFirst().version());
+        }
+    }
+
+    private static boolean sameLine(ProductionItemDTO a, ProductionItemDTO b) {
+        return b != null
+                && a.getQuantity().equals(b.getQuantity())
+                && a.getUnitValue().compareTo(b.getUnitValue()) == 0
+                && a.getProductName().equals(b.getProductName());
+    }
+
+    private static int rowOrEnd(PlanningKernel kernel, long productId) {
+        int row = kernel.rowOf(productId);
+        return row < 0 ? kernel.size() : row;
+    }
+
+    /**
+     * Counts the reservation changes of {@code batch} in the held units. Done before the batch is
+     * applied, so the rebuild that replaces a failed pass counts them too.
+     */
+    private void hold(List<Object> batch) {
+        lock.lock();
+        try {
+            for (Object change : batch) {
+                if (change instanceof ReservationChangedEvent reservation) {
+                    int sign = reservation.held() ? 1 : -1;
+                    reservation.materials().forEach((rawMaterialId, units) ->
+                            held.merge(rawMaterialId, (long) sign * units, (a, b) -> a + b == 0 ? null : a + b));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the stock changes of {@code batch}, and with {@code holds} its reservation changes, to
+     * the stock and returns the dense indexes of the materials they touched. Changes to stock the
+     * last rebuild loaded at the same or a later row version are already in it and are skipped:
+     * changes are queued after their commit, so a rebuild can load a change that is still queued.
+     */
+    private int[] applyStock(List<Object> batch, boolean holds) {
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (Object change : batch) {
+            if (change instanceof StockChangedEvent stockChange) {
+                int material = indexOf(stockChange.rawMaterialId(), 0);
+                if (stockChange.version() > loadedVersions[material]) {
+                    deltas.merge(material, (long) stockChange.delta(), Long::sum);
+                }
+            } else if (holds && change instanceof ReservationChangedEvent reservation) {
+                int sign = reservation.held() ? -1 : 1;
+                reservation.materials().forEach((rawMaterialId, units) ->
+                        deltas.merge(indexOf(rawMaterialId, 0), (long) sign * units, Long::sum));
+            }
+        }
+
+        int[] materials = new int[deltas.size()];
+        int count = 0;
+        for (Map.Entry<Integer, Long> delta : deltas.entrySet()) {
+            int material = delta.getKey();
+            stock[material] += delta.getValue();
+            remaining[material] += delta.getValue();
+            materials[count++] = material;
+        }
+        return materials;
+    }
+
+    private int indexOf(Long rawMaterialId, long stockIfNew) {
+        Integer index = materialIndex.get(rawMaterialId);
+        if (index != null) {
+            return index;
+        }
+
+        int next = materialIndex.size();
+        if (next == stock.length) {
+            materialIds = Arrays.copyOf(materialIds, materialIds.length * 2);
+            loadedVersions = Arrays.copyOf(loadedVersions, loadedVersions.length * 2);
+            stock = Arrays.copyOf(stock, stock.length * 2);
+            remaining = Arrays.copyOf(remaining, remaining.length * 2);
+        }
+
+        materialIndex.put(rawMaterialId, next);
+        materialIds[next] = rawMaterialId;
+        loadedVersions[next] = NOT_LOADED;
+        stock[next] = stockIfNew;
+        remaining[next] = stockIfNew;
+        return next;
+    }
+
+    /**
+     * Hands the product's direct raw material and component lines to the BOM graph and returns the
+     * products whose requirements that may change.
+     */
+    private Set<Long> putBom(ProductEntity entity, List<Edge> edges) {
+        List<ProductRawMaterialEntity> lines = entity.getProductRawMaterials();
+        int[] materials = new int[lines.size()];
+        int[] quantities = new int[lines.size()];
+
+        int count = 0;
+        for (ProductRawMaterialEntity line : lines) {
+            if (line.getQuantityRequired() == null || line.getQuantityRequired() <= 0) {
+                continue;
+            }
+            // Materials not seen yet start empty: their stock arrives with their own change event.
+            materials[count] = indexOf(line.getRawMaterial().getId(), 0);
+            quantities[count] = line.getQuantityRequired();
+            count++;
+        }
+
+        long[] components = new long[edges.size()];
+        int[] componentQuantities = new int[edges.size()];
+        int componentCount = 0;
+        for (Edge edge : edges) {
+            if (edge.quantity() <= 0) {
+                continue;
+            }
+            components[componentCount] = edge.componentId();
+            componentQuantities[componentCount] = edge.quantity();
+            componentCount++;
+        }
+
+        return bom.put(
+                entity.getId(),
+                Arrays.copyOf(materials, count),
+                Arrays.copyOf(quantities, count),
+                Arrays.copyOf(components, componentCount),
+                Arrays.copyOf(componentQuantities, componentCount)
+        );
+    }
+
+    private PlanningKernel.Product toProduct(long productId, String name, BigDecimal price) {
+        BomGraph.Requirements requirements = bom.requirements(productId);
+        return new PlanningKernel.Product(productId, name, price, requirements.materials(), requirements.quantities());
+    }
+
+    private static Map<Long, List<Edge>> edgesByProduct(List<Edge> edges) {
+        Map<Long, List<Edge>> byProduct = new HashMap<>();
+        for (Edge edge : edges) {
+            byProduct.computeIfAbsent(edge.productId(), id -> new ArrayList<>()).add(edge);
+        }
+        return byProduct;
+    }
+
+    /**
+     * A product's plan line before and after a version; {@code null} when it had none.
+     */
+    private record LineChange(long version, long productId, ProductionItemDTO before, ProductionItemDTO after) {
+    }
+
+    private record Catalog(List<RawMaterialEntity> materials, List<ProductEntity> products, List<Edge> edges) {
+    }
+
+    private enum CatalogPart {
+        PRODUCTS,
+        RAW_MATERIALS,
+        BOM_LINES
+    }
+}
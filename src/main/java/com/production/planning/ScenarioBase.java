@@ -0,0 +1,102 @@
+package com.production.planning;
+
+import com.production.dto.ProductionItemDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the planning state at one published version, against which what-if scenarios
+ * are evaluated.
+ *
+ * <p>The kernel, the material index and the stock vector are shared by every scenario and never
+ * written. A scenario is an overlay: stock deltas on a few materials and new prices for a few
+ * products. {@link #evaluate} copies the stock vector once, applies the deltas to the copy and walks
+ * the kernel in the repriced order, so any number of scenarios can run on it at the same time.
+ */
+public final class ScenarioBase {
+
+    private final long version;
+    private final PlanningKernel kernel;
+    private final Map<Long, Integer> materialIndex;
+    private final long[] stock;
+    private final BigDecimal totalValue;
+
+    ScenarioBase(long version, PlanningKernel kernel, Map<Long, Integer> materialIndex, long[] stock,
+                 BigDecimal totalValue) {
+        this.version = version;
+        this.kernel = kernel;
+        this.materialIndex = materialIndex;
+        this.stock = stock;
+        this.totalValue = totalValue;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Total value of the published plan this base was taken from.
+     */
+    public BigDecimal totalValue() {
+        return totalValue;
+    }
+
+    /**
+     * Dense index of the raw material, or -1 if it is unknown.
+     */
+    public int materialOf(long rawMaterialId) {
+        Integer index = materialIndex.get(rawMaterialId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Kernel row of the product, or -1 if it is unknown.
+     */
+    public int rowOf(long productId) {
+        return kernel.rowOf(productId);
+    }
+
+    /**
+     * The plan with the overlay applied. Thread-safe.
+     */
+    public Result evaluate(Overlay overlay) {
+        long[] remaining = stock.clone();
+        for (int i = 0; i < overlay.materials().length; i++) {
+            remaining[overlay.materials()[i]] += overlay.deltas()[i];
+        }
+
+        BigDecimal[] prices = new BigDecimal[kernel.size()];
+        for (int i = 0; i < overlay.rows().length; i++) {
+            prices[overlay.rows()[i]] = overlay.prices()[i];
+        }
+
+        int[] order = kernel.order(overlay.rows(), overlay.prices());
+        int[] planned = new int[kernel.size()];
+        kernel.allocate(order, planned, remaining);
+
+        List<ProductionItemDTO> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int row : order) {
+            if (planned[row] == 0) {
+                continue;
+            }
+            BigDecimal price = prices[row] != null ? prices[row] : kernel.price(row);
+            ProductionItemDTO item = new ProductionItemDTO(kernel.productId(row), kernel.name(row), planned[row], price);
+            items.add(item);
+            total = total.add(item.getTotalValue());
+        }
+        return new Result(items, total);
+    }
+
+    /**
+     * Stock deltas by dense material index and new prices by kernel row. Rows must be distinct.
+     */
+    public record Overlay(int[] materials, long[] deltas, int[] rows, BigDecimal[] prices) {
+    }
+
+    public record Result(List<ProductionItemDTO> items, BigDecimal totalValue) {
+    }
+}
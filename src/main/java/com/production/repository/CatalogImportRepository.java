@@ -0,0 +1,292 @@
+package com.production.repository;
+
+import com.production.dto.ImportReportDTO;
+import com.production.dto.RejectedRowDTO;
+import com.production.event.StockChangedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CSV imports that bypass the entity layer. The file is streamed with {@code COPY} into a temporary
+ * staging table of text columns, validated there, and merged into the real tables with a handful of
+ * set-based statements, so the cost per row is a few microseconds of database work. Rows that fail
+ * validation stay in the staging table and come back in the report. Must run inside a transaction;
+ * the staging tables are dropped when it ends.
+ */
+@ApplicationScoped
+public class CatalogImportRepository {
+
+    /**
+     * Ids handed out per sequence call; matches the {@code allocationSize} of the entity sequences.
+     */
+    static final int ID_BLOCK = 50;
+
+    private static final String NON_NEGATIVE_INT = "'^ *[0-9]{1,9} *$'";
+    private static final String POSITIVE_INT = "'^ *0*[1-9][0-9]{0,8} *$'";
+    private static final String PRICE = "'^ *[0-9]{1,8}(\\.[0-9]{1,2})? *$'";
+
+    private static final String MATERIALS_BY_NAME =
+            "(SELECT DISTINCT ON (name) name, id FROM raw_materials ORDER BY name, id)";
+    private static final String PRODUCTS_BY_NAME =
+            "(SELECT DISTINCT ON (name) name, id FROM products ORDER BY name, id)";
+
+    @Inject
+    EntityManager entityManager;
+
+    /**
+     * Imports {@code name,stock_quantity} rows. A name that already exists gets its stock set to the
+     * imported quantity, any other name becomes a new raw material. Every stock the import changes
+     * or creates is passed to {@code stockChanges}.
+     */
+    public ImportReportDTO importRawMaterials(Reader csv, int maxReportedRejections,
+                                              Consumer<StockChangedEvent> stockChanges) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            execute(connection, "CREATE TEMP TABLE raw_material_import (" +
+                    "line BIGINT GENERATED ALWAYS AS IDENTITY, name TEXT, stock_quantity TEXT, error TEXT" +
+                    ") ON COMMIT DROP");
+
+            ImportReportDTO report = new ImportReportDTO();
+            report.setReceived(copy(connection,
+                    "COPY raw_material_import (name, stock_quantity) FROM STDIN WITH (FORMAT csv, HEADER true)", csv));
+
+            execute(connection, "UPDATE raw_material_import i SET error = v.error FROM (" +
+                    "SELECT line, CASE " +
+                    "WHEN name IS NULL OR btrim(name) = '' THEN 'NAME_REQUIRED' " +
+                    "WHEN length(btrim(name)) > 100 THEN 'NAME_TOO_LONG' " +
+                    "WHEN stock_quantity IS NULL OR stock_quantity !~ " + NON_NEGATIVE_INT + " THEN 'INVALID_STOCK_QUANTITY' " +
+                    "WHEN row_number() OVER (PARTITION BY btrim(name) ORDER BY line) > 1 THEN 'DUPLICATE_NAME' " +
+                    "END AS error FROM raw_material_import) v " +
+                    "WHERE i.line = v.line AND v.error IS NOT NULL");
+
+            execute(connection, "CREATE TEMP TABLE raw_material_merge ON COMMIT DROP AS " +
+                    "SELECT btrim(i.name) AS name, btrim(i.stock_quantity)::int AS stock_quantity, r.id, " +
+                    "row_number() OVER (PARTITION BY r.id IS NULL ORDER BY i.line) - 1 AS k " +
+                    "FROM raw_material_import i LEFT JOIN " + MATERIALS_BY_NAME + " r ON r.name = btrim(i.name) " +
+                    "WHERE i.error IS NULL");
+
+            long updated = 0;
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("UPDATE raw_materials r " +
+                         "SET stock_quantity = m.stock_quantity, version = r.version + 1 " +
+                         "FROM raw_material_merge m, (SELECT x.id, x.stock_quantity FROM raw_materials x " +
+                         "JOIN raw_material_merge y ON y.id = x.id FOR UPDATE OF x) old " +
+                         "WHERE r.id = m.id AND old.id = r.id " +
+                         "RETURNING r.id, old.stock_quantity, r.stock_quantity, r.version")) {
+                while (rows.next()) {
+                    updated++;
+                    if (rows.getInt(2) != rows.getInt(3)) {
+                        stockChanges.accept(new StockChangedEvent(rows.getLong(1), rows.getInt(2), rows.getInt(3),
+                                rows.getLong(4)));
+                    }
+                }
+            }
+            report.setUpdated(updated);
+
+            Long[] blocks = reserveIdBlocks(connection, "raw_materials_seq",
+                    count(connection, "SELECT count(*) FROM raw_material_merge WHERE id IS NULL"));
+            long inserted = 0;
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO raw_materials (id, name, stock_quantity) " +
+                    "SELECT b.top - " + (ID_BLOCK - 1) + " + m.k % " + ID_BLOCK + ", m.name, m.stock_quantity " +
+                    "FROM raw_material_merge m JOIN unnest(?) WITH ORDINALITY AS b(top, n) " +
+                    "ON b.n = m.k / " + ID_BLOCK + " + 1 WHERE m.id IS NULL " +
+                    "RETURNING id, stock_quantity, version")) {
+                insert.setArray(1, connection.createArrayOf("bigint", blocks));
+                try (ResultSet rows = insert.executeQuery()) {
+                    while (rows.next()) {
+                        inserted++;
+                        stockChanges.accept(StockChangedEvent.created(rows.getLong(1), rows.getInt(2), rows.getLong(3)));
+                    }
+                }
+            }
+            report.setInserted(inserted);
+
+            reportRejections(connection, "raw_material_import", maxReportedRejections, report);
+            return report;
+        });
+    }
+
+    /**
+     * Imports {@code product_name,product_price,raw_material_name,quantity_required} rows, one per
+     * bill of materials line. Unknown products are created and need a price on at least one of their
+     * rows; known products get their price updated when one is given. Raw materials must already
+     * exist. A line that is already in the bill of materials gets its quantity replaced.
+     */
+    public ImportReportDTO importBillsOfMaterials(Reader csv, int maxReportedRejections) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            execute(connection, "CREATE TEMP TABLE bom_import (" +
+                    "line BIGINT GENERATED ALWAYS AS IDENTITY, product_name TEXT, product_price TEXT, " +
+                    "raw_material_name TEXT, quantity_required TEXT, error TEXT" +
+                    ") ON COMMIT DROP");
+
+            ImportReportDTO report = new ImportReportDTO();
+            report.setReceived(copy(connection,
+                    "COPY bom_import (product_name, product_price, raw_material_name, quantity_required) " +
+                            "FROM STDIN WITH (FORMAT csv, HEADER true)", csv));
+
+            execute(connection, "UPDATE bom_import i SET error = v.error FROM (" +
+                    "SELECT line, CASE " +
+                    "WHEN product_name IS NULL OR btrim(product_name) = '' THEN 'PRODUCT_NAME_REQUIRED' " +
+                    "WHEN length(btrim(product_name)) > 100 THEN 'PRODUCT_NAME_TOO_LONG' " +
+                    "WHEN btrim(product_price) <> '' AND product_price !~ " + PRICE + " THEN 'INVALID_PRICE' " +
+                    "WHEN raw_material_name IS NULL OR btrim(raw_material_name) = '' THEN 'RAW_MATERIAL_NAME_REQUIRED' " +
+                    "WHEN quantity_required IS NULL OR quantity_required !~ " + POSITIVE_INT + " THEN 'INVALID_QUANTITY' " +
+                    "WHEN row_number() OVER (PARTITION BY btrim(product_name), btrim(raw_material_name) ORDER BY line) > 1 " +
+                    "THEN 'DUPLICATE_LINE' " +
+                    "END AS error FROM bom_import) v " +
+                    "WHERE i.line = v.line AND v.error IS NOT NULL");
+
+            execute(connection, "UPDATE bom_import i SET error = 'UNKNOWN_RAW_MATERIAL' " +
+                    "WHERE i.error IS NULL AND NOT EXISTS (" +
+                    "SELECT 1 FROM raw_materials r WHERE r.name = btrim(i.raw_material_name))");
+
+            // One row per imported product; the price is the first one given for it in the file.
+            execute(connection, "CREATE TEMP TABLE product_merge ON COMMIT DROP AS " +
+                    "SELECT g.name, g.price, p.id, p.id IS NULL AS is_new, " +
+                    "row_number() OVER (PARTITION BY p.id IS NULL AND g.price IS NOT NULL ORDER BY g.name) - 1 AS k " +
+                    "FROM (SELECT btrim(product_name) AS name, (array_agg(NULLIF(btrim(product_price), '')::numeric(10, 2) " +
+                    "ORDER BY line) FILTER (WHERE btrim(product_price) <> ''))[1] AS price " +
+                    "FROM bom_import WHERE error IS NULL GROUP BY btrim(product_name)) g " +
+                    "LEFT JOIN " + PRODUCTS_BY_NAME + " p ON p.name = g.name");
+
+            execute(connection, "UPDATE bom_import i SET error = 'PRICE_REQUIRED' FROM product_merge m " +
+                    "WHERE i.error IS NULL AND m.name = btrim(i.product_name) AND m.is_new AND m.price IS NULL");
+            execute(connection, "DELETE FROM product_merge WHERE is_new AND price IS NULL");
+
+            Long[] productBlocks = reserveIdBlocks(connection, "products_seq",
+                    count(connection, "SELECT count(*) FROM product_merge WHERE is_new"));
+            execute(connection, "UPDATE product_merge m SET id = b.top - " + (ID_BLOCK - 1) + " + m.k % " + ID_BLOCK + " " +
+                    "FROM unnest(?) WITH ORDINALITY AS b(top, n) " +
+                    "WHERE m.is_new AND b.n = m.k / " + ID_BLOCK + " + 1", productBlocks);
+            execute(connection, "INSERT INTO products (id, name, price) " +
+                    "SELECT id, name, price FROM product_merge WHERE is_new");
+            execute(connection, "UPDATE products p SET price = m.price, version = p.version + 1 FROM product_merge m " +
+                    "WHERE p.id = m.id AND NOT m.is_new AND m.price IS NOT NULL AND p.price <> m.price");
+
+            execute(connection, "CREATE TEMP TABLE bom_merge ON COMMIT DROP AS " +
+                    "SELECT m.id AS product_id, r.id AS raw_material_id, " +
+                    "btrim(i.quantity_required)::int AS quantity_required, l.id, " +
+                    "row_number() OVER (PARTITION BY l.id IS NULL ORDER BY i.line) - 1 AS k " +
+                    "FROM bom_import i " +
+                    "JOIN product_merge m ON m.name = btrim(i.product_name) " +
+                    "JOIN " + MATERIALS_BY_NAME + " r ON r.name = btrim(i.raw_material_name) " +
+                    "LEFT JOIN product_raw_materials l ON l.product_id = m.id AND l.raw_material_id = r.id " +
+                    "WHERE i.error IS NULL");
+
+            // A changed bill of materials changes the product's entity tag, which is built from its version.
+            execute(connection, "UPDATE products p SET version = p.version + 1 " +
+                    "WHERE p.id IN (SELECT b.product_id FROM bom_merge b " +
+                    "LEFT JOIN product_raw_materials l ON l.id = b.id " +
+                    "WHERE l.id IS NULL OR l.quantity_required <> b.quantity_required)");
+
+            report.setUpdated(execute(connection, "UPDATE product_raw_materials l " +
+                    "SET quantity_required = b.quantity_required FROM bom_merge b WHERE l.id = b.id"));
+
+            Long[] lineBlocks = reserveIdBlocks(connection, "product_raw_materials_seq",
+                    count(connection, "SELECT count(*) FROM bom_merge WHERE id IS NULL"));
+            report.setInserted(execute(connection,
+                    "INSERT INTO product_raw_materials (id, product_id, raw_material_id, quantity_required) " +
+                            "SELECT b.top - " + (ID_BLOCK - 1) + " + m.k % " + ID_BLOCK + ", " +
+                            "m.product_id, m.raw_material_id, m.quantity_required " +
+                            "FROM bom_merge m JOIN unnest(?) WITH ORDINALITY AS b(top, n) " +
+                            "ON b.n = m.k / " + ID_BLOCK + " + 1 WHERE m.id IS NULL", lineBlocks));
+
+            reportRejections(connection, "bom_import", maxReportedRejections, report);
+            return report;
+        });
+    }
+
+    /**
+     * Streams the CSV into the staging table. A file COPY cannot parse (wrong column count, bad
+     * quoting or encoding) is rejected as a whole.
+     */
+    private static long copy(Connection connection, String sql, Reader csv) throws SQLException {
+        try {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, csv);
+        } catch (SQLException e) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith("22")) {
+                throw new IllegalArgumentException("Malformed CSV: " + e.getMessage(), e);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reserves ids for {@code count} new rows. Every {@code nextval} of a pooled sequence owns the
+     * {@link #ID_BLOCK} ids ending at the returned value, which is how Hibernate reads it too, so
+     * imported rows never take an id Hibernate hands out later. Values below one block are skipped:
+     * a fresh sequence starts at 1 and its block would reach below 1.
+     */
+    private static Long[] reserveIdBlocks(Connection connection, String sequence, long count) throws SQLException {
+        int blocks = (int) ((count + ID_BLOCK - 1) / ID_BLOCK);
+        List<Long> tops = new ArrayList<>(blocks);
+        try (PreparedStatement next = connection.prepareStatement(
+                "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)")) {
+            while (tops.size() < blocks) {
+                next.setInt(1, blocks - tops.size());
+                try (ResultSet rows = next.executeQuery()) {
+                    while (rows.next()) {
+                        long top = rows.getLong(1);
+                        if (top >= ID_BLOCK) {
+                            tops.add(top);
+                        }
+                    }
+                }
+            }
+        }
+        return tops.toArray(Long[]::new);
+    }
+
+    private static void reportRejections(Connection connection, String table, int limit, ImportReportDTO report)
+            throws SQLException {
+        report.setRejected(count(connection, "SELECT count(*) FROM " + table + " WHERE error IS NOT NULL"));
+
+        // Line numbers are those of the file, whose first line is the header.
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT line + 1, error FROM " + table + " WHERE error IS NOT NULL ORDER BY line LIMIT ?")) {
+            select.setInt(1, limit);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    report.getRejectedRows().add(new RejectedRowDTO(rows.getLong(1), rows.getString(2)));
+                }
+            }
+        }
+    }
+
+    private static int execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(sql);
+        }
+    }
+
+    private static int execute(Connection connection, String sql, Long[] blocks) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", blocks));
+            return statement.executeUpdate();
+        }
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(sql)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+}
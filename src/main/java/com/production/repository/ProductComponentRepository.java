@@ -0,0 +1,85 @@
+package com.production.repository;
+
+import com.production.entity.ProductComponentEntity;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collection;
+import java.util.List;
+
+@ApplicationScoped
+public class ProductComponentRepository implements PanacheRepository<ProductComponentEntity> {
+
+    /**
+     * Arbitrary key of the transaction-scoped advisory lock that serializes component changes, so
+     * two transactions cannot each add half of a cycle.
+     */
+    private static final long GRAPH_LOCK = 0x424f4d4752415048L;
+
+    public List<ProductComponentEntity> findByProductId(Long productId) {
+        return find("SELECT c FROM ProductComponentEntity c JOIN FETCH c.component " +
+                "WHERE c.product.id = ?1 ORDER BY c.component.id", productId).list();
+    }
+
+    public ProductComponentEntity findLine(Long productId, Long componentId) {
+        return find("product.id = ?1 AND component.id = ?2", productId, componentId).firstResult();
+    }
+
+    public boolean isComponent(Long productId) {
+        return count("component.id", productId) > 0;
+    }
+
+    public void deleteByProductId(Long productId) {
+        delete("product.id", productId);
+    }
+
+    public List<Edge> findEdges() {
+        return getEntityManager().createQuery(
+                        "SELECT product.id, component.id, quantityRequired FROM ProductComponentEntity", Object[].class)
+                .getResultStream()
+                .map(Edge::of)
+                .toList();
+    }
+
+    public List<Edge> findEdgesOf(Collection<Long> productIds) {
+        return getEntityManager().createQuery(
+                        "SELECT product.id, component.id, quantityRequired FROM ProductComponentEntity " +
+                                "WHERE product.id IN ?1", Object[].class)
+                .setParameter(1, productIds)
+                .getResultStream()
+                .map(Edge::of)
+                .toList();
+    }
+
+    /**
+     * Takes the lock that serializes component changes until the transaction ends.
+     */
+    public void lockGraph() {
+        getEntityManager().createNativeQuery("SELECT pg_advisory_xact_lock(?1)")
+                .setParameter(1, GRAPH_LOCK)
+                .getSingleResult();
+    }
+
+    /**
+     * Whether {@code to} is {@code from} or appears anywhere in the bill of materials below it.
+     */
+    public boolean reaches(Long from, Long to) {
+        Object found = getEntityManager().createNativeQuery(
+                        "WITH RECURSIVE below(id) AS (" +
+                                "SELECT CAST(?1 AS bigint) " +
+                                "UNION " +
+                                "SELECT c.component_id FROM product_components c JOIN below b ON c.product_id = b.id" +
+                                ") SELECT EXISTS (SELECT 1 FROM below WHERE id = ?2)")
+                .setParameter(1, from)
+                .setParameter(2, to)
+                .getSingleResult();
+        return Boolean.TRUE.equals(found);
+    }
+
+    public record Edge(long productId, long componentId, int quantity) {
+
+        static Edge of(Object[] row) {
+            return new Edge(((Number) row[0]).longValue(), ((Number) row[1]).longValue(), ((Number) row[2]).intValue());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.production.repository;
+
+import com.production.dto.ProductRawMaterialResponseDTO;
+import com.production.dto.ProductResponseDTO;
+import com.production.dto.RawMaterialBasicDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Read-only path that builds product listings straight from projections, without loading entities.
+ * A page always costs two statements, whatever the number of products and BOM lines on it.
+ */
+@ApplicationScoped
+public class ProductReadRepository {
+
+    @Inject
+    EntityManager entityManager;
+
+    public List<ProductResponseDTO> findPage(long after, int limit) {
+        List<Object[]> productRows = entityManager.createQuery(
+                        "SELECT p.id, p.name, p.price, p.stock FROM ProductEntity p " +
+                                "WHERE p.id > ?1 ORDER BY p.id", Object[].class)
+                .setParameter(1, after)
+                .setMaxResults(limit)
+                .getResultList();
+
+        if (productRows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProductResponseDTO> products = new LinkedHashMap<>();
+        for (Object[] row : productRows) {
+            Long id = (Long) row[0];
+            products.put(id, new ProductResponseDTO(id, (String) row[1], (BigDecimal) row[2], (Integer) row[3]));
+        }
+
+        List<Object[]> lineRows = entityManager.createQuery(
+                        "SELECT prm.product.id, prm.id, rm.id, rm.name, rm.stockQuantity, prm.quantityRequired " +
+                                "FROM ProductRawMaterialEntity prm JOIN prm.rawMaterial rm " +
+                                "WHERE prm.product.id IN ?1 ORDER BY prm.product.id, prm.id", Object[].class)
+                .setParameter(1, products.keySet())
+                .getResultList();
+
+        for (Object[] row : lineRows) {
+            RawMaterialBasicDTO rawMaterial = new RawMaterialBasicDTO((Long) row[2], (String) row[3], (Integer) row[4]);
+            products.get((Long) row[0]).getProductRawMaterials()
+                    .add(new ProductRawMaterialResponseDTO((Long) row[1], rawMaterial, (Integer) row[5]));
+        }
+
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * Streams every product with its bill of materials to {@code sink}, in id order. Rows are read
+     * through a forward-only cursor {@code fetchSize} at a time and only the product being assembled
+     * is held in memory. Must run inside a transaction.
+     */
+    public void export(int fetchSize, Consumer<ProductResponseDTO> sink) {
+        Session session = entityManager.unwrap(Session.class);
+        ProductResponseDTO current = null;
+        long rows = 0;
+
+        try (ScrollableResults<Object[]> results = session.createSelectionQuery(
+                        "SELECT p.id, p.name, p.price, p.stock, prm.id, rm.id, rm.name, rm.stockQuantity, " +
+                                "prm.quantityRequired FROM ProductEntity p " +
+                                "LEFT JOIN p.productRawMaterials prm LEFT JOIN prm.rawMaterial rm " +
+                                "ORDER BY p.id, prm.id", Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            while (results.next()) {
+                Object[] row = results.get();
+                Long id = (Long) row[0];
+                if (current == null || !Objects.equals(current.getId(), id)) {
+                    if (current != null) {
+                        sink.accept(current);
+                    }
+                    current = new ProductResponseDTO(id, (String) row[1], (BigDecimal) row[2], (Integer) row[3]);
+                }
+                if (row[4] != null) {
+                    RawMaterialBasicDTO rawMaterial = new RawMaterialBasicDTO((Long) row[5], (String) row[6], (Integer) row[7]);
+                    current.getProductRawMaterials()
+                            .add(new ProductRawMaterialResponseDTO((Long) row[4], rawMaterial, (Integer) row[8]));
+                }
+                if (++rows % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+
+        if (current != null) {
+            sink.accept(current);
+        }
+    }
+}
@@ -3,9 +3,16 @@ package com.production.repository;
 import com.production.entity.ProductEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.Collection;
 import java.util.List;
 
+/**
+ * Catalog queries are cached in the query cache; their results are resolved from the second-level
+ * cache of products, BOM lines and raw materials, so a repeated lookup costs no round trip.
+ */
 @ApplicationScoped
 public class ProductRepository implements PanacheRepository<ProductEntity> {
 
@@ -14,7 +21,7 @@ public class ProductRepository implements PanacheRepository<ProductEntity> {
                 "SELECT DISTINCT p FROM ProductEntity p " +
                         "LEFT JOIN FETCH p.productRawMaterials prm " +
                         "LEFT JOIN FETCH prm.rawMaterial"
-        ).list();
+        ).withHint(HibernateHints.HINT_CACHEABLE, true).list();
     }
 
     public ProductEntity findByIdWithRawMaterials(Long id) {
@@ -24,11 +31,31 @@ public class ProductRepository implements PanacheRepository<ProductEntity> {
                         "LEFT JOIN FETCH prm.rawMaterial " +
                         "WHERE p.id = ?1",
                 id
-        ).firstResult();
+        ).withHint(HibernateHints.HINT_CACHEABLE, true).firstResult();
+    }
+
+    public List<ProductEntity> findByIdsWithRawMaterials(Collection<Long> ids) {
+        return find(
+                "SELECT DISTINCT p FROM ProductEntity p " +
+                        "LEFT JOIN FETCH p.productRawMaterials prm " +
+                        "LEFT JOIN FETCH prm.rawMaterial " +
+                        "WHERE p.id IN ?1",
+                ids
+        ).withHint(HibernateHints.HINT_CACHEABLE, true).list();
+    }
+
+    /**
+     * Bumps the product's version right away, so its entity tag changes with an edit of its bill of
+     * materials. The row stays locked until the transaction ends, which also serializes BOM edits.
+     */
+    public void touch(ProductEntity product) {
+        getEntityManager().lock(product, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
     }
 
     public List<ProductEntity> findByName(String name) {
 
-        return list("LOWER(name) LIKE LOWER(?1)", "%" + name + "%");
+        return find("LOWER(name) LIKE LOWER(?1)", "%" + name + "%")
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .list();
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,59 @@
 package com.production.repository;
 
+import com.production.dto.RawMaterialBasicDTO;
+import com.production.dto.StockMovementDTO;
+import com.production.dto.StockMovementResultDTO;
 import com.production.entity.RawMaterialEntity;
+import com.production.event.StockChangedEvent;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 @ApplicationScoped
 public class RawMaterialRepository implements PanacheRepository<RawMaterialEntity> {
 
+    public List<RawMaterialEntity> findPage(long after, int limit) {
+        return find("id > ?1", Sort.by("id"), after).page(0, limit).list();
+    }
+
+    /**
+     * Streams every raw material to {@code sink} in id order through a forward-only cursor, reading
+     * {@code fetchSize} rows at a time. Must run inside a transaction.
+     */
+    public void export(int fetchSize, Consumer<RawMaterialBasicDTO> sink) {
+        Session session = getEntityManager().unwrap(Session.class);
+        long rows = 0;
+
+        try (ScrollableResults<Object[]> results = session.createSelectionQuery(
+                        "SELECT id, name, stockQuantity FROM RawMaterialEntity ORDER BY id", Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+
+            while (results.next()) {
+                Object[] row = results.get();
+                sink.accept(new RawMaterialBasicDTO((Long) row[0], (String) row[1], (Integer) row[2]));
+                if (++rows % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+    }
+
     public List<RawMaterialEntity> findByName(String name) {
         return list("LOWER(name) LIKE LOWER(?1)", "%" + name + "%");
     }
@@ -20,4 +65,157 @@ public class RawMaterialRepository implements PanacheRepository<RawMaterialEntit
     public List<RawMaterialEntity> findLowStock(Integer threshold) {
         return list("stockQuantity <= ?1 ORDER BY stockQuantity ASC", threshold);
     }
-}
\ No newline at end of file
+
+    public List<RawMaterialEntity> findLowStock(Integer threshold, long after, int limit) {
+        return find("stockQuantity <= ?1 AND id > ?2", Sort.by("id"), threshold, after)
+                .page(0, limit)
+                .list();
+    }
+
+    /**
+     * Adds {@code delta} to the stock in a single statement, unless that would take it below
+     * {@code floor} (the units held by reservations, or zero). Returns {@code null} when no row was
+     * updated (unknown id or insufficient stock).
+     */
+    public StockUpdate adjustStock(Long id, int delta, long floor) {
+        List<?> rows = getEntityManager().createNativeQuery(
+                        "UPDATE raw_materials SET stock_quantity = stock_quantity + ?1, version = version + 1 " +
+                                "WHERE id = ?2 AND stock_quantity + ?1 >= ?3 " +
+                                "RETURNING id, name, stock_quantity, version")
+                .setParameter(1, delta)
+                .setParameter(2, id)
+                .setParameter(3, floor)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        int stockQuantity = ((Number) row[2]).intValue();
+        return new StockUpdate(((Number) row[0]).longValue(), (String) row[1], stockQuantity - delta, stockQuantity,
+                ((Number) row[3]).longValue());
+    }
+
+    /**
+     * Sets the stock in a single statement. Returns {@code null} when the id is unknown.
+     */
+    public StockUpdate setStock(Long id, int quantity) {
+        List<?> rows = getEntityManager().createNativeQuery(
+                        "UPDATE raw_materials r SET stock_quantity = ?1, version = r.version + 1 " +
+                                "FROM (SELECT id, stock_quantity FROM raw_materials WHERE id = ?2 FOR UPDATE) old " +
+                                "WHERE r.id = old.id " +
+                                "RETURNING r.id, r.name, r.stock_quantity, old.stock_quantity, r.version")
+                .setParameter(1, quantity)
+                .setParameter(2, id)
+                .getResultList();
+
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        return new StockUpdate(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                ((Number) row[3]).intValue(),
+                ((Number) row[2]).intValue(),
+                ((Number) row[4]).longValue()
+        );
+    }
+
+    /**
+     * Applies the movements in order as one JDBC batch of conditional updates, then reads the
+     * resulting stock of every touched material with a single query. A movement that would take
+     * the stock below zero, or a withdrawal that would take it below {@code reserved} units, is
+     * skipped and reported; the others still apply. Each result carries the stock of its material
+     * right after that movement, worked back from the final stock. The net change to every material
+     * at least one movement applied to is passed to {@code stockChanges}.
+     */
+    public List<StockMovementResultDTO> applyMovements(List<StockMovementDTO> movements, ToLongFunction<Long> reserved,
+                                                       Consumer<StockChangedEvent> stockChanges) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            int[] counts;
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE raw_materials SET stock_quantity = stock_quantity + ?, version = version + 1 " +
+                            "WHERE id = ? AND stock_quantity + ? >= ?")) {
+                for (StockMovementDTO movement : movements) {
+                    update.setInt(1, movement.getDelta());
+                    update.setLong(2, movement.getRawMaterialId());
+                    update.setInt(3, movement.getDelta());
+                    update.setLong(4, movement.getDelta() < 0 ? reserved.applyAsLong(movement.getRawMaterialId()) : 0);
+                    update.addBatch();
+                }
+                counts = update.executeBatch();
+            }
+
+            Object[] ids = movements.stream().map(StockMovementDTO::getRawMaterialId).distinct().toArray();
+            Map<Long, Integer> stock = new HashMap<>();
+            Map<Long, Long> versions = new HashMap<>();
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id, stock_quantity, version FROM raw_materials WHERE id = ANY (?)")) {
+                select.setArray(1, connection.createArrayOf("bigint", ids));
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        stock.put(rows.getLong(1), rows.getInt(2));
+                        versions.put(rows.getLong(1), rows.getLong(3));
+                    }
+                }
+            }
+
+            // The stock right after each line, walking back from the final stock and undoing the
+            // movements that applied.
+            Integer[] running = new Integer[movements.size()];
+            Map<Long, Integer> after = new HashMap<>(stock);
+            for (int i = movements.size() - 1; i >= 0; i--) {
+                StockMovementDTO movement = movements.get(i);
+                running[i] = after.get(movement.getRawMaterialId());
+                if (counts[i] > 0) {
+                    after.merge(movement.getRawMaterialId(), -movement.getDelta(), Integer::sum);
+                }
+            }
+
+            List<StockMovementResultDTO> results = new ArrayList<>(movements.size());
+            Map<Long, Integer> appliedDeltas = new LinkedHashMap<>();
+            for (int i = 0; i < movements.size(); i++) {
+                StockMovementDTO movement = movements.get(i);
+                boolean applied = counts[i] > 0;
+                String error = applied ? null
+                        : running[i] == null ? StockMovementResultDTO.NOT_FOUND
+                        : StockMovementResultDTO.INSUFFICIENT_STOCK;
+                results.add(new StockMovementResultDTO(
+                        movement.getRawMaterialId(), movement.getDelta(), applied, running[i], error));
+                if (applied) {
+                    appliedDeltas.merge(movement.getRawMaterialId(), movement.getDelta(), Integer::sum);
+                }
+            }
+
+            appliedDeltas.forEach((id, delta) -> {
+                int stockQuantity = stock.get(id);
+                stockChanges.accept(new StockChangedEvent(id, stockQuantity - delta, stockQuantity, versions.get(id)));
+            });
+            return results;
+        });
+    }
+
+    /**
+     * Locks the given raw material rows, in id order so concurrent callers cannot deadlock, and
+     * returns their stock. Unknown ids are missing from the result.
+     */
+    public Map<Long, Integer> lockStock(Collection<Long> ids) {
+        List<?> rows = getEntityManager().createNativeQuery(
+                        "SELECT id, stock_quantity FROM raw_materials WHERE id IN (?1) ORDER BY id FOR UPDATE")
+                .setParameter(1, ids)
+                .getResultList();
+
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            stock.put(((Number) columns[0]).longValue(), ((Number) columns[1]).intValue());
+        }
+        return stock;
+    }
+
+    public record StockUpdate(Long id, String name, int previousQuantity, int stockQuantity, long version) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.production.repository;
+
+import com.production.dto.ProductRawMaterialResponseDTO;
+import com.production.dto.ProductResponseDTO;
+import com.production.dto.RawMaterialBasicDTO;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of the list queries of {@link ProductReadRepository} and
+ * {@link RawMaterialRepository}, on the reactive PostgreSQL client. Results are the same DTOs, in
+ * the same order, so responses serialize identically. Writes stay on the blocking repositories.
+ */
+@ApplicationScoped
+public class ReactiveReadRepository {
+
+    @Inject
+    PgPool client;
+
+    public Uni<List<ProductResponseDTO>> findProductPage(long after, int limit) {
+        return client.preparedQuery("SELECT id, name, price, stock FROM products WHERE id > $1 ORDER BY id LIMIT $2")
+                .execute(Tuple.of(after, (long) limit))
+                .onItem().transformToUni(productRows -> {
+                    Map<Long, ProductResponseDTO> products = new LinkedHashMap<>();
+                    for (Row row : productRows) {
+                        Long id = row.getLong("id");
+                        products.put(id, new ProductResponseDTO(id, row.getString("name"),
+                                row.getBigDecimal("price"), row.getInteger("stock")));
+                    }
+
+                    if (products.isEmpty()) {
+                        return Uni.createFrom().item(List.<ProductResponseDTO>of());
+                    }
+
+                    return client.preparedQuery(
+                                    "SELECT prm.product_id, prm.id, rm.id AS raw_material_id, rm.name, " +
+                                            "rm.stock_quantity, prm.quantity_required " +
+                                            "FROM product_raw_materials prm " +
+                                            "JOIN raw_materials rm ON rm.id = prm.raw_material_id " +
+                                            "WHERE prm.product_id = ANY($1) ORDER BY prm.product_id, prm.id")
+                            .execute(Tuple.of(products.keySet().toArray(new Long[0])))
+                            .onItem().transform(lineRows -> {
+                                for (Row row : lineRows) {
+                                    RawMaterialBasicDTO rawMaterial = new RawMaterialBasicDTO(
+                                            row.getLong("raw_material_id"), row.getString("name"),
+                                            row.getInteger("stock_quantity"));
+                                    products.get(row.getLong("product_id")).getProductRawMaterials()
+                                            .add(new ProductRawMaterialResponseDTO(row.getLong("id"), rawMaterial,
+                                                    row.getInteger("quantity_required")));
+                                }
+                                return new ArrayList<>(products.values());
+                            });
+                });
+    }
+
+    public Uni<List<RawMaterialBasicDTO>> findRawMaterialPage(long after, int limit) {
+        return client.preparedQuery("SELECT id, name, stock_quantity FROM raw_materials " +
+                        "WHERE id > $1 ORDER BY id LIMIT $2")
+                .execute(Tuple.of(after, (long) limit))
+                .onItem().transform(ReactiveReadRepository::rawMaterials);
+    }
+
+    public Uni<List<RawMaterialBasicDTO>> findLowStock(Integer threshold, long after, int limit) {
+        return client.preparedQuery("SELECT id, name, stock_quantity FROM raw_materials " +
+                        "WHERE stock_quantity <= $1 AND id > $2 ORDER BY id LIMIT $3")
+                .execute(Tuple.of(threshold, after, (long) limit))
+                .onItem().transform(ReactiveReadRepository::rawMaterials);
+    }
+
+    private static List<RawMaterialBasicDTO> rawMaterials(RowSet<Row> rows) {
+        List<RawMaterialBasicDTO> rawMaterials = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            rawMaterials.add(new RawMaterialBasicDTO(row.getLong("id"), row.getString("name"),
+                    row.getInteger("stock_quantity")));
+        }
+        return rawMaterials;
+    }
+}
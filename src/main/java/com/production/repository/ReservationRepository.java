@@ -0,0 +1,33 @@
+package com.production.repository;
+
+import com.production.entity.ReservationEntity;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+
+import java.time.Instant;
+import java.util.List;
+
+@ApplicationScoped
+public class ReservationRepository implements PanacheRepository<ReservationEntity> {
+
+    public ReservationEntity findByIdForUpdate(Long id) {
+        return findById(id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    public List<ReservationEntity> findActive() {
+        return list("status", ReservationEntity.Status.ACTIVE);
+    }
+
+    /**
+     * Marks every active reservation that expired by {@code now} as expired and returns their ids.
+     * A reservation being committed or released concurrently is waited for and then skipped.
+     */
+    public List<Long> expireDue(Instant now) {
+        return getEntityManager().createNativeQuery(
+                        "UPDATE reservations SET status = 'EXPIRED' " +
+                                "WHERE status = 'ACTIVE' AND expires_at <= ?1 RETURNING id", Long.class)
+                .setParameter(1, now)
+                .getResultList();
+    }
+}
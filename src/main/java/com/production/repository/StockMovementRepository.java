@@ -0,0 +1,192 @@
+package com.production.repository;
+
+import com.production.entity.StockMovementEntity;
+import com.production.entity.StockSnapshotEntity;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and appends to the stock ledger. Both tables are indexed by raw material and time, so the
+ * stock as of any moment costs one index seek to the latest snapshot at or before it plus a range
+ * scan over the movements since, however long the history is.
+ */
+@ApplicationScoped
+public class StockMovementRepository implements PanacheRepository<StockMovementEntity> {
+
+    /**
+     * The ledger's stock per raw material: its latest snapshot, or zero, plus the movements after it.
+     * Expects a {@code r(id)} relation of raw material ids before it.
+     */
+    private static final String LEDGER_STOCK =
+            "LEFT JOIN LATERAL (SELECT stock_quantity, taken_at FROM stock_snapshots s " +
+                    "WHERE s.raw_material_id = r.id ORDER BY taken_at DESC LIMIT 1) s ON true " +
+                    "CROSS JOIN LATERAL (SELECT COALESCE(s.stock_quantity, 0) + COALESCE(SUM(m.delta), 0) AS stock, " +
+                    "COUNT(*) AS movements, MAX(m.occurred_at) AS last_at FROM stock_movements m " +
+                    "WHERE m.raw_material_id = r.id AND m.occurred_at > COALESCE(s.taken_at, '-infinity')) l ";
+
+    private static final String MICROS_TO_TIMESTAMP = "TIMESTAMPTZ 'epoch' + %s * INTERVAL '1 microsecond'";
+
+    /**
+     * Inserts the movements with a single statement, in list order.
+     */
+    public void append(List<Movement> movements) {
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            int size = movements.size();
+            Long[] rawMaterialIds = new Long[size];
+            String[] kinds = new String[size];
+            Integer[] deltas = new Integer[size];
+            Integer[] stock = new Integer[size];
+            Long[] occurredAt = new Long[size];
+            for (int i = 0; i < size; i++) {
+                Movement movement = movements.get(i);
+                rawMaterialIds[i] = movement.rawMaterialId();
+                kinds[i] = movement.kind().name();
+                deltas[i] = movement.delta();
+                stock[i] = movement.stockQuantity();
+                occurredAt[i] = movement.occurredAtMicros();
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO stock_movements (id, raw_material_id, kind, delta, stock_quantity, occurred_at) " +
+                            "SELECT nextval('stock_movements_seq'), m.raw_material_id, m.kind, m.delta, m.stock_quantity, " +
+                            MICROS_TO_TIMESTAMP.formatted("m.occurred_at") + " " +
+                            "FROM unnest(?, ?, ?, ?, ?) AS m(raw_material_id, kind, delta, stock_quantity, occurred_at)")) {
+                insert.setArray(1, connection.createArrayOf("bigint", rawMaterialIds));
+                insert.setArray(2, connection.createArrayOf("text", kinds));
+                insert.setArray(3, connection.createArrayOf("integer", deltas));
+                insert.setArray(4, connection.createArrayOf("integer", stock));
+                insert.setArray(5, connection.createArrayOf("bigint", occurredAt));
+                insert.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Snapshots the ledger stock of the given raw materials, as of their latest movement.
+     */
+    public int snapshot(Collection<Long> rawMaterialIds) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO stock_snapshots (id, raw_material_id, stock_quantity, taken_at) " +
+                            "SELECT nextval('stock_snapshots_seq'), r.id, l.stock, l.last_at " +
+                            "FROM unnest(?) AS r(id) " + LEDGER_STOCK + "WHERE l.last_at IS NOT NULL")) {
+                insert.setArray(1, connection.createArrayOf("bigint", rawMaterialIds.toArray()));
+                return insert.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Movements recorded after the latest snapshot of each raw material. Materials without any are
+     * missing from the result.
+     */
+    public Map<Long, Integer> countSinceSnapshot(Collection<Long> rawMaterialIds) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            Map<Long, Integer> counts = new HashMap<>();
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT r.id, l.movements FROM unnest(?) AS r(id) " + LEDGER_STOCK + "WHERE l.movements > 0")) {
+                select.setArray(1, connection.createArrayOf("bigint", rawMaterialIds.toArray()));
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        counts.put(rows.getLong(1), rows.getInt(2));
+                    }
+                }
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * Records a {@code RECONCILED} movement at {@code occurredAtMicros} for every raw material whose
+     * stock differs from the ledger's, including those with no history at all, and returns how many
+     * there were. Reads every raw material with its ledger tail, so it only runs on startup.
+     */
+    public int reconcile(long occurredAtMicros) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO stock_movements (id, raw_material_id, kind, delta, stock_quantity, occurred_at) " +
+                            "SELECT nextval('stock_movements_seq'), r.id, 'RECONCILED', r.stock_quantity - l.stock, " +
+                            "r.stock_quantity, " + MICROS_TO_TIMESTAMP.formatted("?") + " " +
+                            "FROM (SELECT id, stock_quantity FROM raw_materials ORDER BY id) r " + LEDGER_STOCK +
+                            "WHERE r.stock_quantity <> l.stock")) {
+                insert.setLong(1, occurredAtMicros);
+                return insert.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * When the most recent movement occurred, in microseconds since the epoch, or 0 for an empty
+     * ledger. Ids are assigned in time order, so this reads one primary key entry.
+     */
+    public long lastOccurredAtMicros() {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT CAST(EXTRACT(EPOCH FROM occurred_at) * 1000000 AS bigint) " +
+                            "FROM stock_movements ORDER BY id DESC LIMIT 1");
+                 ResultSet rows = select.executeQuery()) {
+                return rows.next() ? rows.getLong(1) : 0L;
+            }
+        });
+    }
+
+    public StockSnapshotEntity findLatestSnapshot(Long rawMaterialId, Instant asOf) {
+        return getEntityManager().createQuery(
+                        "FROM StockSnapshotEntity WHERE rawMaterialId = ?1 AND takenAt <= ?2 ORDER BY takenAt DESC",
+                        StockSnapshotEntity.class)
+                .setParameter(1, rawMaterialId)
+                .setParameter(2, asOf)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Sums the movements of a raw material in {@code (after, asOf]}; {@code after} may be
+     * {@code null} to start from the first one.
+     */
+    public Tail sumMovements(Long rawMaterialId, Instant after, Instant asOf) {
+        TypedQuery<Object[]> query = getEntityManager().createQuery(
+                        "SELECT COALESCE(SUM(delta), 0), COUNT(*) FROM StockMovementEntity " +
+                                "WHERE rawMaterialId = ?1 AND occurredAt <= ?2" +
+                                (after == null ? "" : " AND occurredAt > ?3"),
+                        Object[].class)
+                .setParameter(1, rawMaterialId)
+                .setParameter(2, asOf);
+        if (after != null) {
+            query.setParameter(3, after);
+        }
+        Object[] row = query.getSingleResult();
+        return new Tail(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+    }
+
+    public List<StockMovementEntity> findPage(Long rawMaterialId, long afterId, int limit) {
+        return find("rawMaterialId = ?1 and id > ?2 order by id", rawMaterialId, afterId).page(0, limit).list();
+    }
+
+    /**
+     * A movement to append. {@code occurredAtMicros} is in microseconds since the epoch, the
+     * precision of the column.
+     */
+    public record Movement(long rawMaterialId, StockMovementEntity.Kind kind, int delta, int stockQuantity,
+                           long occurredAtMicros) {
+
+        public Movement at(long micros) {
+            return new Movement(rawMaterialId, kind, delta, stockQuantity, micros);
+        }
+    }
+
+    public record Tail(long delta, long movements) {
+    }
+}
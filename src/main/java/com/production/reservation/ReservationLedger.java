@@ -0,0 +1,151 @@
+package com.production.reservation;
+
+import com.production.entity.ReservationEntity;
+import com.production.event.ReservationChangedEvent;
+import com.production.repository.ReservationRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.interceptor.Interceptor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Units of every raw material held by active reservations, the in-memory half of available-to-promise
+ * (stock on hand minus {@link #held}). Each raw material has its own counter, so reading or changing
+ * holds on one material never waits on another.
+ *
+ * <p>A hold is added while the reserving transaction still has the raw material rows locked, and
+ * taken back if that transaction rolls back; it is removed once the transaction that commits,
+ * releases or expires the reservation has committed. The reservations table is the durable copy:
+ * active reservations are loaded back on startup, before the production plan is built, and a
+ * background sweep expires reservations past their TTL every {@code reservations.sweep-interval}.
+ */
+@ApplicationScoped
+public class ReservationLedger {
+
+    private static final Logger LOG = Logger.getLogger(ReservationLedger.class);
+
+    @Inject
+    ReservationRepository reservationRepository;
+
+    @Inject
+    Event<ReservationChangedEvent> reservationChanged;
+
+    @ConfigProperty(name = "reservations.sweep-interval", defaultValue = "1s")
+    Duration sweepInterval;
+
+    private final ConcurrentHashMap<Long, AtomicLong> held = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Map<Long, Integer>> reservations = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public long held(Long rawMaterialId) {
+        AtomicLong units = held.get(rawMaterialId);
+        return units == null ? 0 : units.get();
+    }
+
+    /**
+     * Held units of every raw material with any held, as of now.
+     */
+    public Map<Long, Long> heldUnits() {
+        Map<Long, Long> units = new HashMap<>();
+        held.forEach((rawMaterialId, counter) -> {
+            long value = counter.get();
+            if (value != 0) {
+                units.put(rawMaterialId, value);
+            }
+        });
+        return units;
+    }
+
+    public int activeCount() {
+        return reservations.size();
+    }
+
+    /**
+     * Holds {@code materials} for the reservation. Callers must have the raw material rows locked
+     * and have checked availability against {@link #held} under those locks.
+     */
+    public void hold(Long reservationId, Map<Long, Integer> materials) {
+        if (reservations.putIfAbsent(reservationId, Map.copyOf(materials)) != null) {
+            return;
+        }
+        materials.forEach((rawMaterialId, units) ->
+                held.computeIfAbsent(rawMaterialId, id -> new AtomicLong()).addAndGet(units));
+    }
+
+    private void release(Long reservationId) {
+        Map<Long, Integer> materials = reservations.remove(reservationId);
+        if (materials == null) {
+            return;
+        }
+        materials.forEach((rawMaterialId, units) -> held.get(rawMaterialId).addAndGet(-units));
+    }
+
+    void onStart(@Observes @Priority(Interceptor.Priority.APPLICATION) StartupEvent event) {
+        List<ReservationEntity> active = QuarkusTransaction.requiringNew().call(reservationRepository::findActive);
+        for (ReservationEntity reservation : active) {
+            hold(reservation.getId(), reservation.getMaterials());
+        }
+        if (!active.isEmpty()) {
+            LOG.infof("Recovered %d active reservations", active.size());
+        }
+
+        long interval = sweepInterval.toMillis();
+        sweeper.scheduleWithFixedDelay(this::expire, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    void onRolledBack(@Observes(during = TransactionPhase.AFTER_FAILURE) ReservationChangedEvent event) {
+        if (event.held()) {
+            release(event.reservationId());
+        }
+    }
+
+    void onEnded(@Observes(during = TransactionPhase.AFTER_SUCCESS) ReservationChangedEvent event) {
+        if (!event.held()) {
+            release(event.reservationId());
+        }
+    }
+
+    private void expire() {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (Long id : reservationRepository.expireDue(Instant.now())) {
+                    Map<Long, Integer> materials = reservations.get(id);
+                    if (materials != null) {
+                        reservationChanged.fire(ReservationChangedEvent.ended(id, materials));
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.error("Expiring reservations failed, retrying on the next sweep", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.production.resource;
+
+import com.production.entity.ProductEntity;
+import com.production.entity.RawMaterialEntity;
+import com.production.service.InventoryVersion;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Strong entity tags for conditional GETs. A tag is derived from version numbers only, so checking
+ * {@code If-None-Match} never needs the response body.
+ *
+ * <p>Raw materials are tagged with their version column. Every edit of a bill of materials bumps
+ * the product's version, but a product response also embeds the name and stock of its raw
+ * materials, so its tag combines the product version with the {@link InventoryVersion}. That keeps
+ * the check down to the product row, at the cost of a {@code 200} after unrelated stock changes.
+ * Listings and the production plan are tagged with the inventory version alone. It lives in memory
+ * and restarts from zero, so those tags carry an id of the running instance.
+ */
+@ApplicationScoped
+public class EntityTags {
+
+    private final String instance = Long.toString(UUID.randomUUID().getMostSignificantBits() >>> 1, 36);
+
+    @Inject
+    InventoryVersion inventoryVersion;
+
+    public EntityTag catalog() {
+        return catalog(inventoryVersion.current());
+    }
+
+    public EntityTag catalog(long version) {
+        return new EntityTag(instance + "-" + version);
+    }
+
+    public EntityTag rawMaterial(RawMaterialEntity rawMaterial) {
+        return new EntityTag("rm" + rawMaterial.getId() + "-" + rawMaterial.getVersion());
+    }
+
+    public EntityTag product(ProductEntity product) {
+        return new EntityTag(productPrefix(product) + instance + "-" + inventoryVersion.current());
+    }
+
+    /**
+     * Evaluates {@code If-Match} for an edit of a product. Only the product's own part of the tag has
+     * to match: stock changed since the client's read changes the tag but does not conflict with the
+     * edit. Returns the {@code 412} response, or {@code null} when the edit may go ahead.
+     */
+    public Response productPreconditionFailed(HttpHeaders headers, ProductEntity product) {
+        List<String> ifMatch = headers.getRequestHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || ifMatch.isEmpty()) {
+            return null;
+        }
+        String prefix = "\"" + productPrefix(product);
+        for (String header : ifMatch) {
+            for (String value : header.split(",")) {
+                String tag = value.trim();
+                if (tag.equals("*") || tag.startsWith(prefix)) {
+                    return null;
+                }
+            }
+        }
+        return Response.status(Response.Status.PRECONDITION_FAILED).build();
+    }
+
+    /**
+     * Returns the {@code 304 Not Modified} response when the request's preconditions match
+     * {@code tag}, or {@code null} when the full response has to be sent.
+     */
+    public Response notModified(Request request, EntityTag tag) {
+        Response.ResponseBuilder response = request.evaluatePreconditions(tag);
+        return response == null ? null : response.tag(tag).build();
+    }
+
+    private static String productPrefix(ProductEntity product) {
+        return "p" + product.getId() + "-" + product.getVersion() + "-";
+    }
+}
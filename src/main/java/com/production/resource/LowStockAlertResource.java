@@ -0,0 +1,30 @@
+package com.production.resource;
+
+import com.production.alert.LowStockAlerts;
+import com.production.dto.LowStockAlertDTO;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+/**
+ * Server-sent events for low-stock threshold crossings. Kept apart from {@link RawMaterialResource}
+ * because a stream is served from the event loop, not from a virtual thread.
+ */
+@Path("/raw-materials/low-stock/stream")
+public class LowStockAlertResource {
+
+    @Inject
+    LowStockAlerts alerts;
+
+    @GET
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<LowStockAlertDTO> stream(@QueryParam("threshold") Integer threshold) {
+        if (threshold == null) {
+            throw new BadRequestException("threshold is required");
+        }
+        return alerts.subscribe(threshold);
+    }
+}
@@ -0,0 +1,64 @@
+package com.production.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Streams a full export as newline-delimited JSON. The source runs in its own transaction while the
+ * response is being written, pushing one object at a time into a buffered generator on the response
+ * stream, so memory use does not depend on the size of the export.
+ */
+@ApplicationScoped
+public class NdjsonExport {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "export.transaction-timeout", defaultValue = "3600")
+    int transactionTimeout;
+
+    /**
+     * @param source called with the fetch size and the sink to push every exported object into
+     */
+    public <T> Response stream(BiConsumer<Integer, Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingOutput body = output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.setRootValueSeparator(null);
+                QuarkusTransaction.requiringNew()
+                        .timeout(transactionTimeout)
+                        .run(() -> source.accept(fetchSize, item -> {
+                            try {
+                                writer.writeValue(generator, item);
+                                generator.writeRaw('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return Response.ok(body, MEDIA_TYPE).build();
+    }
+}
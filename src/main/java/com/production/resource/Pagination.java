@@ -0,0 +1,60 @@
+package com.production.resource;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for list endpoints: {@code ?after=<id>&limit=<n>} returns up to {@code n} rows
+ * with an id greater than {@code after}, in id order. When the page is full, the id to pass as
+ * {@code after} for the next page is returned in the {@value #NEXT_CURSOR_HEADER} header. Pages
+ * carry the catalog-wide tag from {@link EntityTags}, taken before the rows were read.
+ */
+@ApplicationScoped
+public class Pagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @ConfigProperty(name = "pagination.default-limit", defaultValue = "100")
+    int defaultLimit;
+
+    @ConfigProperty(name = "pagination.max-limit", defaultValue = "1000")
+    int maxLimit;
+
+    public long after(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    public int limit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    public <T> Response page(List<T> rows, int limit, Function<T, Long> id, EntityTag tag) {
+        return page(Response.ok(rows).tag(tag), rows, limit, id);
+    }
+
+    /**
+     * An untagged page, for listings that are not part of the catalog.
+     */
+    public <T> Response page(List<T> rows, int limit, Function<T, Long> id) {
+        return page(Response.ok(rows), rows, limit, id);
+    }
+
+    private static <T> Response page(Response.ResponseBuilder response, List<T> rows, int limit, Function<T, Long> id) {
+        if (rows.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, id.apply(rows.get(rows.size() - 1)));
+        }
+        return response.build();
+    }
+}
@@ -1,29 +1,52 @@
 package com.production.resource;
 
+import com.production.dto.NameMatchDTO;
+import com.production.dto.ProductComponentDTO;
 import com.production.dto.ProductResponseDTO;
 import com.production.entity.ProductEntity;
 import com.production.entity.ProductRawMaterialEntity;
 import com.production.entity.RawMaterialEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.NameChangedEvent;
+import com.production.repository.ProductReadRepository;
 import com.production.repository.ProductRepository;
 import com.production.repository.ProductRawMaterialRepository;
 import com.production.repository.RawMaterialRepository;
+import com.production.search.CatalogSearch;
+import com.production.search.NameIndex;
+import com.production.service.CatalogImportService;
+import com.production.service.ConcurrentUpdateException;
+import com.production.service.InventoryVersion;
 import com.production.service.ProductService;
+import com.production.service.ProductionPlanService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
 
 @Path("/products")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductResource {
 
+    private static final Logger LOG = Logger.getLogger(ProductResource.class);
+
     @Inject
     ProductRepository productRepository;
 
@@ -33,28 +56,115 @@ public class ProductResource {
     @Inject
     ProductRawMaterialRepository productRawMaterialRepository;
 
+    @Inject
+    ProductReadRepository productReadRepository;
+
     @Inject
     ProductService productService;
 
+    @Inject
+    ProductionPlanService productionPlanService;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    Event<NameChangedEvent> nameChanged;
+
+    @Inject
+    Pagination pagination;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    InventoryVersion inventoryVersion;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    NdjsonExport ndjsonExport;
+
+    @Inject
+    CatalogImportService catalogImportService;
+
+    @Inject
+    CatalogSearch catalogSearch;
+
     @GET
-    public Response list() {
-        List<ProductResponseDTO> products = productRepository.listAll()
-                .stream()
-                .map(ProductResponseDTO::new)
-                .collect(Collectors.toList());
-        return Response.ok(products).build();
+    public Response list(@QueryParam("after") Long after, @QueryParam("limit") Integer limit,
+                         @Context Request request, @Context HttpHeaders headers) {
+        int pageSize = pagination.limit(limit);
+        long version = inventoryVersion.current();
+        EntityTag tag = tags.catalog(version);
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        long from = pagination.after(after);
+        ResponseCache.Body body = responseCache.get(version, new ProductPage(from, pageSize), () -> {
+            List<ProductResponseDTO> products = productReadRepository.findPage(from, pageSize);
+            return responseCache.encode(products, products.size() == pageSize
+                    ? Map.of(Pagination.NEXT_CURSOR_HEADER, products.get(pageSize - 1).getId())
+                    : Map.of());
+        });
+        return responseCache.ok(body, headers).tag(tag).build();
+    }
+
+    @GET
+    @Path("/search")
+    public Response search(@QueryParam("name") String name, @QueryParam("limit") Integer limit) {
+        if (name == null || name.trim().length() < NameIndex.MIN_QUERY_LENGTH) {
+            return Response.status(400).build();
+        }
+
+        List<NameMatchDTO> matches = catalogSearch.products(name, pagination.limit(limit)).stream()
+                .map(match -> new NameMatchDTO(match.id(), match.name()))
+                .toList();
+        return Response.ok(matches).build();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(NdjsonExport.MEDIA_TYPE)
+    public Response export() {
+        return ndjsonExport.stream(productReadRepository::export);
+    }
+
+    @POST
+    @Path("/import")
+    @Consumes("text/csv")
+    public Response importCsv(InputStream csv) {
+        try {
+            return Response.ok(catalogImportService.importBillsOfMaterials(csv)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(400).entity(e.getMessage()).build();
+        }
     }
 
     @GET
     @Path("/{id}")
-    public Response get(@PathParam("id") Long id) {
-        ProductEntity product = productRepository.findByIdWithRawMaterials(id);
+    public Response get(@PathParam("id") Long id, @Context Request request) {
+        ProductEntity product = productRepository.findById(id);
+
+        if (product == null) {
+            return Response.status(404).build();
+        }
+
+        EntityTag tag = tags.product(product);
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
 
+        product = productRepository.findByIdWithRawMaterials(id);
         if (product == null) {
             return Response.status(404).build();
         }
 
-        return Response.ok(new ProductResponseDTO(product)).build();
+        return Response.ok(new ProductResponseDTO(product)).tag(tag).build();
     }
 
     @POST
@@ -78,6 +188,8 @@ public class ProductResource {
             }
 
             productRepository.persist(product);
+            catalogChanged.fire(CatalogChangedEvent.product(product.getId()));
+            nameChanged.fire(NameChangedEvent.product(product.getId(), product.getName()));
             return Response.status(201).entity(new ProductResponseDTO(product)).build();
 
         } catch (Exception e) {
@@ -89,44 +201,71 @@ public class ProductResource {
     @PUT
     @Path("/{id}")
     @Transactional
-    public Response update(@PathParam("id") Long id, ProductEntity updated) {
-        ProductEntity product = productRepository.findById(id);
+    public Response update(@PathParam("id") Long id, ProductEntity updated, @Context HttpHeaders headers) {
+        ProductEntity product = productRepository.findByIdWithRawMaterials(id);
 
         if (product == null) {
             return Response.status(404).build();
         }
 
+        Response preconditionFailed = tags.productPreconditionFailed(headers, product);
+        if (preconditionFailed != null) {
+            return preconditionFailed;
+        }
+
         product.setName(updated.getName());
         product.setPrice(updated.getPrice());
         product.setStock(updated.getStock());
+        try {
+            productRepository.flush();
+        } catch (OptimisticLockException e) {
+            throw new ConcurrentUpdateException("Product", id);
+        }
+        catalogChanged.fire(CatalogChangedEvent.product(id));
+        nameChanged.fire(NameChangedEvent.product(id, product.getName()));
 
-        return Response.ok(new ProductResponseDTO(product)).build();
+        return Response.ok(new ProductResponseDTO(product)).tag(tags.product(product)).build();
     }
 
     @DELETE
     @Path("/{id}")
     @Transactional
     public Response delete(@PathParam("id") Long id) {
+        productService.deleteComponents(id);
         boolean deleted = productRepository.deleteById(id);
 
         if (!deleted) {
             return Response.status(404).build();
         }
 
+        catalogChanged.fire(CatalogChangedEvent.product(id));
+        nameChanged.fire(NameChangedEvent.product(id, null));
+
         return Response.noContent().build();
     }
 
 
     @GET
     @Path("/{id}/raw-materials")
-    public Response getRawMaterials(@PathParam("id") Long productId) {
-        ProductEntity product = productRepository.findByIdWithRawMaterials(productId);
+    public Response getRawMaterials(@PathParam("id") Long productId, @Context Request request) {
+        ProductEntity product = productRepository.findById(productId);
 
         if (product == null) {
             return Response.status(404).entity("Product not found").build();
         }
 
-        return Response.ok(new ProductResponseDTO(product).getProductRawMaterials()).build();
+        EntityTag tag = tags.product(product);
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        product = productRepository.findByIdWithRawMaterials(productId);
+        if (product == null) {
+            return Response.status(404).entity("Product not found").build();
+        }
+
+        return Response.ok(new ProductResponseDTO(product).getProductRawMaterials()).tag(tag).build();
     }
 
     @POST
@@ -160,6 +299,8 @@ public class ProductResource {
             productRawMaterial.setQuantityRequired(quantityRequired);
 
             productRawMaterialRepository.persist(productRawMaterial);
+            productRepository.touch(product);
+            catalogChanged.fire(CatalogChangedEvent.product(productId));
 
             product = productRepository.findByIdWithRawMaterials(productId);
 
@@ -177,7 +318,8 @@ public class ProductResource {
     public Response updateRawMaterialQuantity(
             @PathParam("productId") Long productId,
             @PathParam("rawMaterialId") Long rawMaterialId,
-            Map<String, Integer> payload) {
+            Map<String, Integer> payload,
+            @Context HttpHeaders headers) {
 
         try {
             ProductEntity product = productRepository.findByIdWithRawMaterials(productId);
@@ -185,6 +327,11 @@ public class ProductResource {
                 return Response.status(404).entity("Product not found").build();
             }
 
+            Response preconditionFailed = tags.productPreconditionFailed(headers, product);
+            if (preconditionFailed != null) {
+                return preconditionFailed;
+            }
+
             Integer newQuantity = payload.get("quantity");
             if (newQuantity == null || newQuantity <= 0) {
                 return Response.status(400).entity("Invalid quantity").build();
@@ -200,10 +347,16 @@ public class ProductResource {
             }
 
             association.setQuantityRequired(newQuantity);
+            productRepository.touch(product);
+            productRawMaterialRepository.flush();
+            catalogChanged.fire(CatalogChangedEvent.product(productId));
 
             product = productRepository.findByIdWithRawMaterials(productId);
 
-            return Response.ok(new ProductResponseDTO(product)).build();
+            return Response.ok(new ProductResponseDTO(product)).tag(tags.product(product)).build();
+
+        } catch (OptimisticLockException e) {
+            throw new ConcurrentUpdateException("Product", productId);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -213,28 +366,70 @@ public class ProductResource {
 
     @DELETE
     @Path("/{productId}/raw-materials/{rawMaterialId}")
-    @Transactional
     public Response removeRawMaterial(
             @PathParam("productId") Long productId,
             @PathParam("rawMaterialId") Long rawMaterialId) {
 
         try {
-            System.out.println(" Resource: Delegating to ProductService");
-
             productService.removeRawMaterialFromProduct(productId, rawMaterialId);
-
-            System.out.println(" Resource: Service completed successfully");
-
             return Response.noContent().build();
 
         } catch (NotFoundException e) {
-            System.out.println(" Resource: Not found - " + e.getMessage());
             return Response.status(404).entity(e.getMessage()).build();
 
+        } catch (ConcurrentUpdateException e) {
+            throw e;
+
         } catch (Exception e) {
-            System.out.println(" Resource: Error - " + e.getMessage());
-            e.printStackTrace();
+            LOG.errorf(e, "Removing raw material %d from product %d failed", rawMaterialId, productId);
             return Response.status(500).entity("Error: " + e.getMessage()).build();
         }
     }
-}
\ No newline at end of file
+
+    @GET
+    @Path("/{id}/components")
+    public Response getComponents(@PathParam("id") Long productId) {
+        return Response.ok(productService.getComponents(productId)).build();
+    }
+
+    @POST
+    @Path("/{id}/components")
+    public Response addComponent(@PathParam("id") Long productId, ProductComponentDTO component) {
+        return Response.status(201).entity(productService.addComponent(productId, component)).build();
+    }
+
+    @PUT
+    @Path("/{productId}/components/{componentId}")
+    public Response updateComponentQuantity(
+            @PathParam("productId") Long productId,
+            @PathParam("componentId") Long componentId,
+            Map<String, Integer> payload) {
+        Integer quantity = payload == null ? null : payload.get("quantity");
+        return Response.ok(productService.updateComponentQuantity(productId, componentId, quantity)).build();
+    }
+
+    @DELETE
+    @Path("/{productId}/components/{componentId}")
+    public Response removeComponent(
+            @PathParam("productId") Long productId,
+            @PathParam("componentId") Long componentId) {
+        productService.removeComponent(productId, componentId);
+        return Response.noContent().build();
+    }
+
+    /**
+     * Raw material units needed for one unit of the product, with every sub-assembly exploded.
+     */
+    @GET
+    @Path("/{id}/requirements")
+    public Response getRequirements(@PathParam("id") Long productId) {
+        Map<Long, Long> requirements = productionPlanService.requirements(productId);
+        if (requirements == null) {
+            return Response.status(404).entity("Product not found").build();
+        }
+        return Response.ok(new TreeMap<>(requirements)).build();
+    }
+
+    private record ProductPage(long after, int limit) {
+    }
+}
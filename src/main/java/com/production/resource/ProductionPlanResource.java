@@ -1,25 +1,79 @@
 package com.production.resource;
 
+import com.production.dto.PlanChangesDTO;
+import com.production.dto.ScenarioDTO;
+import com.production.planning.PlanSnapshot;
 import com.production.service.ProductionPlanService;
+import com.production.service.ScenarioService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Path("/production-plan")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class ProductionPlanResource {
 
+    private static final String PLAN = "production-plan";
+
     @Inject
     ProductionPlanService service;
 
+    @Inject
+    ScenarioService scenarioService;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    ResponseCache responseCache;
+
     @GET
-    public Response getPlan() {
-        return Response.ok(service.calculateProductionPlan()).build();
+    public Response getPlan(@Context Request request, @Context HttpHeaders headers) {
+        // A client holding the tag of the latest version is up to date, whatever state the planner is in.
+        Response notModified = tags.notModified(request, tags.catalog());
+        if (notModified != null) {
+            return notModified;
+        }
+
+        PlanSnapshot snapshot = service.currentPlan();
+        EntityTag tag = tags.catalog(snapshot.version());
+        notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        ResponseCache.Body body = responseCache.get(snapshot.version(), PLAN,
+                () -> responseCache.encode(snapshot.plan(), Map.of("X-Plan-Version", snapshot.version())));
+        return responseCache.ok(body, headers).tag(tag).build();
+    }
+
+    /**
+     * Only the plan lines that changed after {@code since}, the {@code X-Plan-Version} of an earlier
+     * response; the whole plan, flagged {@code full}, when that version is too old.
+     */
+    @GET
+    @Path("/changes")
+    public Response getChanges(@QueryParam("since") Long since) {
+        if (since == null || since < 0) {
+            return Response.status(400).entity("since must be a plan version").build();
+        }
+
+        PlanChangesDTO changes = service.changesSince(since);
+        return Response.ok(changes)
+                .header("X-Plan-Version", changes.getVersion())
+                .build();
     }
 
     @GET
@@ -44,4 +98,16 @@ public class ProductionPlanResource {
 
         return Response.ok(response).build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Plans every scenario against the current plan without changing any stock or price.
+     */
+    @POST
+    @Path("/scenarios")
+    public Response evaluateScenarios(List<ScenarioDTO> scenarios) {
+        ScenarioService.Evaluation evaluation = scenarioService.evaluate(scenarios);
+        return Response.ok(evaluation.results())
+                .header("X-Plan-Version", evaluation.version())
+                .build();
+    }
+}
@@ -1,32 +1,122 @@
 package com.production.resource;
 
+import com.production.dto.StockMovementDTO;
 import com.production.dto.StockRequest;
 import com.production.entity.RawMaterialEntity;
+import com.production.entity.StockMovementEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.NameChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.ledger.StockLedger;
 import com.production.repository.RawMaterialRepository;
+import com.production.repository.StockMovementRepository;
+import com.production.reservation.ReservationLedger;
+import com.production.search.NameIndex;
+import com.production.service.CatalogImportService;
+import com.production.service.ConcurrentUpdateException;
+import com.production.service.InsufficientStockException;
+import com.production.service.ProductionPlanService;
+import com.production.service.RawMaterialService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @Path("/raw-materials")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
 public class RawMaterialResource {
 
     @Inject
     RawMaterialRepository repository;
 
+    @Inject
+    RawMaterialService rawMaterialService;
+
+    @Inject
+    Pagination pagination;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    NdjsonExport ndjsonExport;
+
+    @Inject
+    CatalogImportService catalogImportService;
+
+    @Inject
+    ProductionPlanService productionPlanService;
+
+    @Inject
+    StockLedger stockLedger;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @Inject
+    StockMovementRepository stockMovementRepository;
+
+    @Inject
+    Event<StockChangedEvent> stockChanged;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    Event<NameChangedEvent> nameChanged;
+
     @GET
-    public List<RawMaterialEntity> list() {
-        return repository.listAll();
+    public Response list(@QueryParam("after") Long after, @QueryParam("limit") Integer limit,
+                         @Context Request request) {
+        int pageSize = pagination.limit(limit);
+        EntityTag tag = tags.catalog();
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return pagination.page(
+                repository.findPage(pagination.after(after), pageSize),
+                pageSize,
+                RawMaterialEntity::getId,
+                tag
+        );
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(NdjsonExport.MEDIA_TYPE)
+    public Response export() {
+        return ndjsonExport.stream(repository::export);
+    }
+
+    @POST
+    @Path("/import")
+    @Consumes("text/csv")
+    public Response importCsv(InputStream csv) {
+        try {
+            return Response.ok(catalogImportService.importRawMaterials(csv)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(400).entity(e.getMessage()).build();
+        }
     }
 
     @GET
     @Path("/{id}")
-    public Response get(@PathParam("id") Long id) {
+    public Response get(@PathParam("id") Long id, @Context Request request) {
 
         RawMaterialEntity material = repository.findById(id);
 
@@ -34,7 +124,13 @@ public class RawMaterialResource {
             return Response.status(404).build();
         }
 
-        return Response.ok(material).build();
+        EntityTag tag = tags.rawMaterial(material);
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
+        return Response.ok(material).tag(tag).build();
     }
 
     @POST
@@ -50,24 +146,47 @@ public class RawMaterialResource {
         }
 
         repository.persist(material);
+        stockChanged.fire(StockChangedEvent.created(material.getId(), material.getStockQuantity(), material.getVersion()));
+        nameChanged.fire(NameChangedEvent.rawMaterial(material.getId(), material.getName()));
         return Response.status(201).entity(material).build();
     }
 
     @PUT
     @Path("/{id}")
     @Transactional
-    public Response update(@PathParam("id") Long id, RawMaterialEntity updated) {
+    public Response update(@PathParam("id") Long id, RawMaterialEntity updated, @Context Request request) {
 
+        // Reservations only hold units under the row lock, so it is taken before they are read.
+        if (repository.lockStock(List.of(id)).isEmpty()) {
+            return Response.status(404).build();
+        }
         RawMaterialEntity material = repository.findById(id);
 
         if (material == null) {
             return Response.status(404).build();
         }
 
+        Response.ResponseBuilder preconditionFailed = request.evaluatePreconditions(tags.rawMaterial(material));
+        if (preconditionFailed != null) {
+            return preconditionFailed.build();
+        }
+
+        if (updated.getStockQuantity() != null && updated.getStockQuantity() < reservationLedger.held(id)) {
+            throw new InsufficientStockException(id);
+        }
+
+        int previous = material.getStockQuantity();
         material.setName(updated.getName());
         material.setStockQuantity(updated.getStockQuantity());
+        try {
+            repository.flush();
+        } catch (OptimisticLockException e) {
+            throw new ConcurrentUpdateException("Raw material", id);
+        }
+        stockChanged.fire(new StockChangedEvent(id, previous, material.getStockQuantity(), material.getVersion()));
+        nameChanged.fire(NameChangedEvent.rawMaterial(id, material.getName()));
 
-        return Response.ok(material).build();
+        return Response.ok(material).tag(tags.rawMaterial(material)).build();
     }
 
     @DELETE
@@ -81,83 +200,134 @@ public class RawMaterialResource {
             return Response.status(404).build();
         }
 
+        catalogChanged.fire(CatalogChangedEvent.all());
+        nameChanged.fire(NameChangedEvent.rawMaterial(id, null));
+
         return Response.noContent().build();
     }
 
     @POST
     @Path("/{id}/stock/increase")
-    @Transactional
     public Response increase(@PathParam("id") Long id, StockRequest request) {
 
-        RawMaterialEntity material = repository.findById(id);
-
-        if (material == null) return Response.status(404).build();
-
         if (request == null || request.quantity == null || request.quantity < 0) {
             return Response.status(400).build();
         }
 
-        material.setStockQuantity(material.getStockQuantity() + request.quantity);
-
-        return Response.ok(material).build();
+        return Response.ok(rawMaterialService.increaseStock(id, request.quantity)).build();
     }
 
     @POST
     @Path("/{id}/stock/decrease")
-    @Transactional
     public Response decrease(@PathParam("id") Long id, StockRequest request) {
 
-        RawMaterialEntity material = repository.findById(id);
-
-        if (material == null) {
-            return Response.status(404).build();
-        }
-
         if (request == null || request.quantity == null || request.quantity < 0) {
             return Response.status(400).build();
         }
 
-        if (material.getStockQuantity() < request.quantity) {
+        return Response.ok(rawMaterialService.decreaseStock(id, request.quantity)).build();
+    }
+
+    @POST
+    @Path("/stock/movements")
+    public Response applyMovements(List<StockMovementDTO> movements) {
+
+        if (movements == null || movements.isEmpty()) {
             return Response.status(400).build();
         }
 
-        material.setStockQuantity(
-                material.getStockQuantity() - request.quantity
-        );
+        boolean invalid = movements.stream().anyMatch(movement ->
+                movement == null || movement.getRawMaterialId() == null || movement.getDelta() == null);
+        if (invalid) {
+            return Response.status(400).entity("Every movement needs rawMaterialId and delta").build();
+        }
 
-        return Response.ok(material).build();
+        return Response.ok(rawMaterialService.applyMovements(movements)).build();
     }
+
     @PATCH
     @Path("/{id}/stock")
-    @Transactional
     public Response updateStock(@PathParam("id") Long id,
                                 @QueryParam("quantity") Integer quantity) {
 
-        RawMaterialEntity material = repository.findById(id);
-
-        if (material == null) {
-            return Response.status(404).build();
-        }
-
         if (quantity == null || quantity < 0) {
             return Response.status(400).build();
         }
 
-        material.setStockQuantity(quantity);
+        return Response.ok(rawMaterialService.updateStock(id, quantity)).build();
+    }
+
+    /**
+     * Products that use the raw material, directly or through sub-assemblies, from the planner's
+     * where-used index.
+     */
+    @GET
+    @Path("/{id}/where-used")
+    public Response whereUsed(@PathParam("id") Long id) {
+        rawMaterialService.findById(id);
+        return Response.ok(productionPlanService.whereUsed(id)).build();
+    }
+
+    /**
+     * The stock as of {@code asOf} (ISO-8601, default now), rebuilt from the stock ledger.
+     */
+    @GET
+    @Path("/{id}/stock")
+    public Response stockAsOf(@PathParam("id") Long id, @QueryParam("asOf") String asOf) {
+        Instant at;
+        try {
+            at = asOf == null ? Instant.now() : Instant.parse(asOf);
+        } catch (DateTimeParseException e) {
+            return Response.status(400).entity("asOf must be an ISO-8601 instant").build();
+        }
 
-        return Response.ok(material).build();
+        return Response.ok(stockLedger.stockAsOf(id, at)).build();
+    }
+
+    @GET
+    @Path("/{id}/movements")
+    public Response movements(@PathParam("id") Long id,
+                              @QueryParam("after") Long after,
+                              @QueryParam("limit") Integer limit) {
+        int pageSize = pagination.limit(limit);
+        stockLedger.awaitWritten();
+        return pagination.page(
+                stockMovementRepository.findPage(id, pagination.after(after), pageSize),
+                pageSize,
+                StockMovementEntity::getId
+        );
     }
 
     @GET
     @Path("/low-stock")
-    public List<RawMaterialEntity> lowStock(@QueryParam("threshold") Integer threshold) {
-        return repository.findLowStock(threshold);
+    public Response lowStock(@QueryParam("threshold") Integer threshold,
+                             @QueryParam("after") Long after,
+                             @QueryParam("limit") Integer limit,
+                             @Context Request request) {
+        int pageSize = pagination.limit(limit);
+        EntityTag tag = tags.catalog();
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return pagination.page(
+                repository.findLowStock(threshold, pagination.after(after), pageSize),
+                pageSize,
+                RawMaterialEntity::getId,
+                tag
+        );
     }
 
     @GET
     @Path("/search")
-    public List<RawMaterialEntity> search(@QueryParam("name") String name) {
-        return repository.findByName(name);
+    public Response search(@QueryParam("name") String name,
+                           @QueryParam("limit") Integer limit) {
+
+        if (name == null || name.trim().length() < NameIndex.MIN_QUERY_LENGTH) {
+            return Response.status(400).build();
+        }
+
+        return Response.ok(rawMaterialService.searchByName(name, pagination.limit(limit))).build();
     }
 
 }
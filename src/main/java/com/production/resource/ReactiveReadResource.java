@@ -0,0 +1,79 @@
+package com.production.resource;
+
+import com.production.dto.ProductResponseDTO;
+import com.production.dto.RawMaterialBasicDTO;
+import com.production.repository.ReactiveReadRepository;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Event-loop implementations of the catalog list endpoints. {@link ReactiveReads} routes
+ * {@code GET /products}, {@code /raw-materials} and {@code /raw-materials/low-stock} here when
+ * {@code reads.reactive} is on.
+ *
+ * <p>The paths below are public whatever the flag says. They are read-only views of the same data
+ * as the blocking listings, kept reachable so both implementations can be compared side by side.
+ */
+@Path(ReactiveReads.PREFIX)
+@Produces(MediaType.APPLICATION_JSON)
+public class ReactiveReadResource {
+
+    @Inject
+    ReactiveReadRepository repository;
+
+    @Inject
+    Pagination pagination;
+
+    @Inject
+    EntityTags tags;
+
+    @GET
+    @Path("/products")
+    public Uni<Response> products(@QueryParam("after") Long after, @QueryParam("limit") Integer limit,
+                                  @Context Request request) {
+        int pageSize = pagination.limit(limit);
+        EntityTag tag = tags.catalog();
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return Uni.createFrom().item(notModified);
+        }
+        return repository.findProductPage(pagination.after(after), pageSize)
+                .onItem().transform(products -> pagination.page(products, pageSize, ProductResponseDTO::getId, tag));
+    }
+
+    @GET
+    @Path("/raw-materials")
+    public Uni<Response> rawMaterials(@QueryParam("after") Long after, @QueryParam("limit") Integer limit,
+                                      @Context Request request) {
+        int pageSize = pagination.limit(limit);
+        EntityTag tag = tags.catalog();
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return Uni.createFrom().item(notModified);
+        }
+        return repository.findRawMaterialPage(pagination.after(after), pageSize)
+                .onItem().transform(rawMaterials -> pagination.page(rawMaterials, pageSize, RawMaterialBasicDTO::getId, tag));
+    }
+
+    @GET
+    @Path("/raw-materials/low-stock")
+    public Uni<Response> lowStock(@QueryParam("threshold") Integer threshold,
+                                  @QueryParam("after") Long after,
+                                  @QueryParam("limit") Integer limit,
+                                  @Context Request request) {
+        int pageSize = pagination.limit(limit);
+        EntityTag tag = tags.catalog();
+        Response notModified = tags.notModified(request, tag);
+        if (notModified != null) {
+            return Uni.createFrom().item(notModified);
+        }
+        return repository.findLowStock(threshold, pagination.after(after), pageSize)
+                .onItem().transform(rawMaterials -> pagination.page(rawMaterials, pageSize, RawMaterialBasicDTO::getId, tag));
+    }
+}
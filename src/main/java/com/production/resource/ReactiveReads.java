@@ -0,0 +1,36 @@
+package com.production.resource;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+import java.util.Set;
+
+/**
+ * Switches the catalog list endpoints between the blocking implementations and
+ * {@link ReactiveReadResource}. With {@code reads.reactive} on, matching GET requests are rewritten
+ * to the reactive paths before routing, so clients keep calling the same URLs. The reactive paths
+ * themselves stay public with the flag off.
+ */
+public class ReactiveReads {
+
+    static final String PREFIX = "/reactive";
+
+    private static final Set<String> PATHS = Set.of("/products", "/raw-materials", "/raw-materials/low-stock");
+
+    @ConfigProperty(name = "reads.reactive", defaultValue = "false")
+    boolean enabled;
+
+    @ServerRequestFilter(preMatching = true)
+    public void route(ContainerRequestContext request) {
+        if (!enabled || !HttpMethod.GET.equals(request.getMethod())) {
+            return;
+        }
+
+        String path = request.getUriInfo().getPath();
+        if (PATHS.contains(path)) {
+            request.setRequestUri(request.getUriInfo().getRequestUriBuilder().replacePath(PREFIX + path).build());
+        }
+    }
+}
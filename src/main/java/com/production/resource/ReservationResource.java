@@ -0,0 +1,55 @@
+package com.production.resource;
+
+import com.production.dto.ReservationDTO;
+import com.production.dto.ReservationRequest;
+import com.production.service.ReservationService;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+@Path("/reservations")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RunOnVirtualThread
+public class ReservationResource {
+
+    @Inject
+    ReservationService reservationService;
+
+    @POST
+    public Response reserve(ReservationRequest request) {
+        if (request == null) {
+            return Response.status(400).build();
+        }
+
+        ReservationDTO reservation = reservationService.reserve(
+                request.getProductId(), request.getQuantity(), request.getTtlSeconds());
+        return Response.status(201).entity(reservation).build();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response get(@PathParam("id") Long id) {
+        return Response.ok(reservationService.findById(id)).build();
+    }
+
+    @POST
+    @Path("/{id}/commit")
+    public Response commit(@PathParam("id") Long id) {
+        return Response.ok(reservationService.commit(id)).build();
+    }
+
+    @POST
+    @Path("/{id}/release")
+    public Response release(@PathParam("id") Long id) {
+        return Response.ok(reservationService.release(id)).build();
+    }
+
+    @GET
+    @Path("/available/{rawMaterialId}")
+    public Response available(@PathParam("rawMaterialId") Long rawMaterialId) {
+        return Response.ok(reservationService.availability(rawMaterialId)).build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.production.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Already-encoded JSON bodies of hot GET responses, keyed by the {@code InventoryVersion} of the
+ * data they show, so a repeated read of unchanged data skips building DTOs and running Jackson.
+ *
+ * <p>Bodies are held as Vert.x buffers wrapping the encoded bytes. The server writes a buffer entity
+ * as is, and a buffer can be written to any number of responses at once, so a hit hands the shared
+ * bytes to the connection without copying them. Bodies of at least
+ * {@code response-cache.gzip-min-size} bytes are also gzipped once when encoded, and sent as such
+ * to clients accepting {@code gzip}.
+ *
+ * <p>When a newer version shows up, the bodies of older ones are dropped. At most
+ * {@code response-cache.max-entries} bodies are kept; past that, responses are encoded per request
+ * as before.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "response-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "response-cache.max-entries", defaultValue = "1000")
+    int maxEntries;
+
+    @ConfigProperty(name = "response-cache.gzip", defaultValue = "true")
+    boolean gzip;
+
+    @ConfigProperty(name = "response-cache.gzip-min-size", defaultValue = "1024")
+    int gzipMinSize;
+
+    private final Map<Key, Body> bodies = new ConcurrentHashMap<>();
+    private final AtomicLong latest = new AtomicLong(-1);
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = Counter.builder("http.response_cache").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("http.response_cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * The cached body of {@code key} at {@code version}, encoding the one {@code load} returns on
+     * a miss.
+     */
+    public Body get(long version, Object key, Supplier<Body> load) {
+        if (!enabled) {
+            return load.get();
+        }
+
+        long previous = latest.get();
+        if (version > previous && latest.compareAndSet(previous, version)) {
+            bodies.keySet().removeIf(cached -> cached.version() < version);
+        }
+
+        Key cacheKey = new Key(version, key);
+        Body body = bodies.get(cacheKey);
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+
+        misses.increment();
+        body = load.get();
+        if (bodies.size() < maxEntries && version >= latest.get()) {
+            bodies.putIfAbsent(cacheKey, body);
+        }
+        return body;
+    }
+
+    /**
+     * Encodes {@code value} as the response body, with headers to send along with it every time.
+     */
+    public Body encode(Object value, Map<String, Object> headers) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode " + value.getClass().getSimpleName(), e);
+        }
+        byte[] gzipped = gzip && json.length >= gzipMinSize ? gzip(json) : null;
+        return new Body(Buffer.buffer(json), gzipped == null ? null : Buffer.buffer(gzipped), headers);
+    }
+
+    /**
+     * A 200 response carrying the body, gzipped if the client accepts it and a gzipped copy exists.
+     */
+    public Response.ResponseBuilder ok(Body body, HttpHeaders headers) {
+        boolean gzipped = body.gzipped() != null && acceptsGzip(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        Response.ResponseBuilder response = Response.ok(gzipped ? body.gzipped() : body.json(), MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzipped) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        body.headers().forEach(response::header);
+        return response;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An encoded body: the JSON, its gzipped copy or {@code null}, and headers that belong to it.
+     */
+    public record Body(Buffer json, Buffer gzipped, Map<String, Object> headers) {
+    }
+
+    private record Key(long version, Object key) {
+    }
+}
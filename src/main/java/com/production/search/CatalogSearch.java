@@ -0,0 +1,126 @@
+package com.production.search;
+
+import com.production.dto.RawMaterialBasicDTO;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.NameChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.event.StockImportedEvent;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Name search over products and raw materials, served from {@link NameIndex}es that follow every
+ * committed create, rename and delete. The indexes are loaded from the database at startup and
+ * again after changes that may touch many rows at once, such as imports.
+ *
+ * <p>Raw material matches carry their stock, which is kept next to the index from committed stock
+ * changes, so a search never queries the database. Each level keeps the row version it was read at,
+ * and an older one never replaces a newer one.
+ */
+@ApplicationScoped
+public class CatalogSearch {
+
+    @Inject
+    EntityManager entityManager;
+
+    private final NameIndex products = new NameIndex();
+    private final NameIndex rawMaterials = new NameIndex();
+    private final Map<Long, StockLevel> stock = new ConcurrentHashMap<>();
+
+    public List<NameIndex.Match> products(String query, int limit) {
+        return products.search(query, limit);
+    }
+
+    public List<RawMaterialBasicDTO> rawMaterials(String query, int limit) {
+        List<RawMaterialBasicDTO> matches = new ArrayList<>();
+        for (NameIndex.Match match : rawMaterials.search(query, limit)) {
+            StockLevel level = stock.get(match.id());
+            // Missing only for a raw material whose creation is being applied right now.
+            if (level != null) {
+                matches.add(new RawMaterialBasicDTO(match.id(), match.name(), level.quantity()));
+            }
+        }
+        return matches;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        reload();
+    }
+
+    void onNameChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) NameChangedEvent event) {
+        NameIndex index = event.type() == NameChangedEvent.Type.PRODUCT ? products : rawMaterials;
+        if (event.deleted()) {
+            index.remove(event.id());
+            if (index == rawMaterials) {
+                stock.remove(event.id());
+            }
+        } else {
+            index.put(event.id(), event.name());
+        }
+    }
+
+    void onStockChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockChangedEvent event) {
+        updateStock(event.rawMaterialId(), event.stockQuantity(), event.version());
+    }
+
+    void onStockImported(@Observes(during = TransactionPhase.AFTER_SUCCESS) StockImportedEvent event) {
+        for (StockChangedEvent change : event.changes()) {
+            updateStock(change.rawMaterialId(), change.stockQuantity(), change.version());
+        }
+    }
+
+    void onCatalogChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CatalogChangedEvent event) {
+        if (event.affectsAll()) {
+            reload();
+        }
+    }
+
+    private void reload() {
+        products.reload(() -> load("SELECT p.id, p.name FROM ProductEntity p"));
+        rawMaterials.reload(this::loadRawMaterials);
+    }
+
+    private Map<Long, String> loadRawMaterials() {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            List<Object[]> rows = entityManager.createQuery(
+                    "SELECT r.id, r.name, r.stockQuantity, r.version FROM RawMaterialEntity r", Object[].class)
+                    .getResultList();
+            Map<Long, String> names = new HashMap<>(Math.max(16, rows.size() * 2));
+            for (Object[] row : rows) {
+                names.put((Long) row[0], (String) row[1]);
+                updateStock((Long) row[0], (Integer) row[2], (Long) row[3]);
+            }
+            return names;
+        });
+    }
+
+    private void updateStock(Long id, int quantity, long version) {
+        stock.merge(id, new StockLevel(quantity, version),
+                (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    private Map<Long, String> load(String query) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            List<Object[]> rows = entityManager.createQuery(query, Object[].class).getResultList();
+            Map<Long, String> names = new HashMap<>(Math.max(16, rows.size() * 2));
+            for (Object[] row : rows) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+            return names;
+        });
+    }
+
+    private record StockLevel(int quantity, long version) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.production.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory substring index over names, case-insensitive.
+ *
+ * <p>Every distinct trigram of a name points to the ids containing it. A three-character query is a
+ * single lookup; a longer one scans the ids of its rarest trigram and keeps those whose name contains
+ * the query. Shorter queries are not answered: one or two characters match most of the names, and
+ * ranking them would scan nearly every id under the read lock. Matches are ranked exact match first,
+ * then prefix, then start of a word, then anywhere, shorter names first within a rank.
+ *
+ * <p>A {@link #reload} can run while changes keep coming in: changes applied after it starts are
+ * replayed on top of the freshly loaded names, so a change committed after the names were read is
+ * never lost.
+ */
+public final class NameIndex {
+
+    static final int GRAM = 3;
+
+    /** Queries shorter than this, after trimming, find nothing. */
+    public static final int MIN_QUERY_LENGTH = GRAM;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.name().length())
+            .thenComparingLong(Match::id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock.
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, String> normalized = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private int reloading;
+    private final List<Runnable> replay = new ArrayList<>();
+
+    public void put(long id, String name) {
+        write(() -> {
+            unindex(id);
+            index(id, name);
+        });
+    }
+
+    public void remove(long id) {
+        write(() -> unindex(id));
+    }
+
+    /**
+     * Replaces the whole index with what {@code load} returns. The load itself runs without holding
+     * the lock, searches keep being served from the old contents until it completes.
+     */
+    public void reload(Supplier<Map<Long, String>> load) {
+        lock.writeLock().lock();
+        try {
+            reloading++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, String> loaded = null;
+        try {
+            loaded = load.get();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    names.clear();
+                    normalized.clear();
+                    postings.clear();
+                    loaded.forEach(this::index);
+                    replay.forEach(Runnable::run);
+                }
+                if (--reloading == 0) {
+                    replay.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} names containing {@code query}, best ranked first. Empty for a query shorter
+     * than {@link #MIN_QUERY_LENGTH}.
+     */
+    public List<Match> search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.length() < MIN_QUERY_LENGTH || limit < 1) {
+            return List.of();
+        }
+
+        PriorityQueue<Match> best;
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = candidates(needle);
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+
+            best = new PriorityQueue<>(Math.min(limit, candidates.size()), RANKING.reversed());
+
+            boolean verify = needle.length() > GRAM;
+            for (Long id : candidates) {
+                String name = normalized.get(id);
+                int position = name.indexOf(needle);
+                if (verify && position < 0) {
+                    continue;
+                }
+                Match match = new Match(id, names.get(id), rank(name, needle, position));
+                if (best.size() < limit) {
+                    best.add(match);
+                } else if (RANKING.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(RANKING);
+        return matches;
+    }
+
+    private Set<Long> candidates(String needle) {
+        if (needle.length() == GRAM) {
+            return postings.getOrDefault(needle, Set.of());
+        }
+
+        Set<Long> rarest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<Long> ids = postings.get(needle.substring(i, i + GRAM));
+            if (ids == null) {
+                return Set.of();
+            }
+            if (rarest == null || ids.size() < rarest.size()) {
+                rarest = ids;
+            }
+        }
+        return rarest;
+    }
+
+    private static int rank(String name, String needle, int position) {
+        if (position == 0) {
+            return name.length() == needle.length() ? 0 : 1;
+        }
+        for (int at = position; at >= 0; at = name.indexOf(needle, at + 1)) {
+            if (!Character.isLetterOrDigit(name.charAt(at - 1))) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (reloading > 0) {
+                replay.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long id, String name) {
+        String key = normalize(name);
+        names.put(id, name);
+        normalized.put(id, key);
+        for (String gram : grams(key)) {
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unindex(long id) {
+        String key = normalized.remove(id);
+        if (key == null) {
+            return;
+        }
+        names.remove(id);
+        for (String gram : grams(key)) {
+            Set<Long> ids = postings.get(gram);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String key) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param rank 0 exact, 1 prefix, 2 start of a word, 3 anywhere
+     */
+    public record Match(long id, String name, int rank) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.production.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+public class BomCycleException extends ClientErrorException {
+
+    public BomCycleException(Long productId, Long componentId) {
+        super("Product " + componentId + " cannot be a component of product " + productId +
+                ": it is the product itself or already uses it", Response.Status.CONFLICT);
+    }
+}
@@ -0,0 +1,62 @@
+package com.production.service;
+
+import com.production.dto.ImportReportDTO;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.event.StockImportedEvent;
+import com.production.repository.CatalogImportRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class CatalogImportService {
+
+    @Inject
+    CatalogImportRepository catalogImportRepository;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    Event<StockImportedEvent> stockImported;
+
+    @ConfigProperty(name = "import.max-reported-rejections", defaultValue = "1000")
+    int maxReportedRejections;
+
+    @Transactional
+    public ImportReportDTO importRawMaterials(InputStream csv) {
+        List<StockChangedEvent> stockChanges = new ArrayList<>();
+        ImportReportDTO report = catalogImportRepository.importRawMaterials(
+                reader(csv), maxReportedRejections, stockChanges::add);
+        if (!stockChanges.isEmpty()) {
+            stockImported.fire(new StockImportedEvent(stockChanges));
+        }
+        return changed(report);
+    }
+
+    @Transactional
+    public ImportReportDTO importBillsOfMaterials(InputStream csv) {
+        return changed(catalogImportRepository.importBillsOfMaterials(reader(csv), maxReportedRejections));
+    }
+
+    private ImportReportDTO changed(ImportReportDTO report) {
+        // Accepted rows may only have changed a product price, which the report does not count.
+        if (report.getReceived() > report.getRejected()) {
+            catalogChanged.fire(CatalogChangedEvent.all());
+        }
+        return report;
+    }
+
+    private static InputStreamReader reader(InputStream csv) {
+        return new InputStreamReader(csv, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,11 @@
+package com.production.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+public class ConcurrentUpdateException extends ClientErrorException {
+
+    public ConcurrentUpdateException(String entity, Long id) {
+        super(entity + " with id " + id + " was modified concurrently, reload it and try again", Response.Status.CONFLICT);
+    }
+}
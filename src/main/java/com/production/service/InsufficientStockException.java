@@ -0,0 +1,11 @@
+package com.production.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+public class InsufficientStockException extends ClientErrorException {
+
+    public InsufficientStockException(Long rawMaterialId) {
+        super("Insufficient stock for raw material with id: " + rawMaterialId, Response.Status.CONFLICT);
+    }
+}
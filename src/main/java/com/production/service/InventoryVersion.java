@@ -0,0 +1,22 @@
+package com.production.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global counter bumped once for every committed stock or catalog change.
+ */
+@ApplicationScoped
+public class InventoryVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long increment() {
+        return version.incrementAndGet();
+    }
+}
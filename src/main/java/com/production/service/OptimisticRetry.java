@@ -0,0 +1,108 @@
+package com.production.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs idempotent internal mutations of versioned entities, retrying them when another transaction
+ * changed the same rows first. Each attempt runs in a new transaction and is flushed before it
+ * commits, so a version conflict surfaces inside the attempt. Between attempts the caller sleeps for
+ * a random delay below an exponentially growing cap ("full jitter"), so writers that collided once
+ * do not collide again in lockstep. Once {@code optimistic-lock.retry.max-attempts} is used up the
+ * conflict becomes a {@link ConcurrentUpdateException}.
+ *
+ * <p>Only for work that is safe to run again from scratch, and not from inside a transaction the
+ * work is expected to join. Client updates are not retried; they answer 409 instead.
+ */
+@ApplicationScoped
+public class OptimisticRetry {
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "optimistic-lock.retry.max-attempts", defaultValue = "5")
+    int maxAttempts;
+
+    @ConfigProperty(name = "optimistic-lock.retry.base-delay", defaultValue = "5ms")
+    Duration baseDelay;
+
+    @ConfigProperty(name = "optimistic-lock.retry.max-delay", defaultValue = "200ms")
+    Duration maxDelay;
+
+    private Counter retried;
+    private Counter exhausted;
+
+    @PostConstruct
+    void register() {
+        retried = conflicts("retried");
+        exhausted = conflicts("exhausted");
+    }
+
+    public void run(String entity, Long id, Runnable work) {
+        call(entity, id, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T call(String entity, Long id, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return QuarkusTransaction.requiringNew().call(() -> {
+                    T result = work.get();
+                    entityManager.flush();
+                    return result;
+                });
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw new ConcurrentUpdateException(entity, id);
+                }
+                retried.increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long cap = Math.min(maxDelay.toNanos(), baseDelay.toNanos() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(Duration.ofNanos(ThreadLocalRandom.current().nextLong(cap + 1)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a conflicting update", e);
+        }
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Counter conflicts(String outcome) {
+        return Counter.builder("inventory.optimistic_lock.conflicts")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
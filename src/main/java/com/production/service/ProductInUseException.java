@@ -0,0 +1,12 @@
+package com.production.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+public class ProductInUseException extends ClientErrorException {
+
+    public ProductInUseException(Long productId) {
+        super("Product " + productId + " is a component of other products, remove it from them first",
+                Response.Status.CONFLICT);
+    }
+}
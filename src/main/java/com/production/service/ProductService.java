@@ -1,16 +1,24 @@
 package com.production.service;
 
+import com.production.dto.ProductComponentDTO;
 import com.production.dto.ProductRawMaterialDTO;
+import com.production.entity.ProductComponentEntity;
 import com.production.entity.ProductEntity;
 import com.production.entity.ProductRawMaterialEntity;
 import com.production.entity.RawMaterialEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.NameChangedEvent;
+import com.production.repository.ProductComponentRepository;
 import com.production.repository.ProductRepository;
 import com.production.repository.ProductRawMaterialRepository;
 import com.production.repository.RawMaterialRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 
 import java.util.List;
@@ -28,9 +36,18 @@ public class ProductService {
     @Inject
     ProductRawMaterialRepository productRawMaterialRepository;
 
+    @Inject
+    ProductComponentRepository productComponentRepository;
+
     @Inject
     EntityManager entityManager;
 
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    Event<NameChangedEvent> nameChanged;
+
     public List<ProductEntity> findAll() {
         return productRepository.listAll();
     }
@@ -46,21 +63,106 @@ public class ProductService {
     @Transactional
     public ProductEntity create(ProductEntity product) {
         productRepository.persist(product);
+        catalogChanged.fire(CatalogChangedEvent.product(product.getId()));
+        nameChanged.fire(NameChangedEvent.product(product.getId(), product.getName()));
         return product;
     }
 
     @Transactional
-    public ProductEntity update(Long id, ProductEntity updatedProduct) {
+    public void delete(Long id) {
         ProductEntity product = findById(id);
-        product.setName(updatedProduct.getName());
-        product.setPrice(updatedProduct.getPrice());
-        return product;
+        deleteComponents(id);
+        productRepository.delete(product);
+        catalogChanged.fire(CatalogChangedEvent.product(id));
+        nameChanged.fire(NameChangedEvent.product(id, null));
+    }
+
+    /**
+     * Removes the component lines of a product that is about to be deleted. A product that is still
+     * a component of another one cannot be deleted.
+     */
+    public void deleteComponents(Long productId) {
+        productComponentRepository.lockGraph();
+        if (productComponentRepository.isComponent(productId)) {
+            throw new ProductInUseException(productId);
+        }
+        productComponentRepository.deleteByProductId(productId);
+    }
+
+    public List<ProductComponentDTO> getComponents(Long productId) {
+        findById(productId);
+        return productComponentRepository.findByProductId(productId)
+                .stream()
+                .map(line -> new ProductComponentDTO(
+                        line.getComponent().getId(),
+                        line.getComponent().getName(),
+                        line.getQuantityRequired()
+                ))
+                .collect(Collectors.toList());
     }
 
+    /**
+     * Adds a sub-assembly to the bill of materials. Component changes are serialized, and a
+     * component that is the product itself or already uses it is refused, so the graph of
+     * components stays acyclic.
+     */
     @Transactional
-    public void delete(Long id) {
-        ProductEntity product = findById(id);
-        productRepository.delete(product);
+    public List<ProductComponentDTO> addComponent(Long productId, ProductComponentDTO dto) {
+        if (dto == null || dto.getComponentId() == null || dto.getQuantityRequired() == null
+                || dto.getQuantityRequired() <= 0) {
+            throw new BadRequestException("componentId and a positive quantityRequired are required");
+        }
+
+        productComponentRepository.lockGraph();
+        ProductEntity product = findById(productId);
+        ProductEntity component = productRepository.findById(dto.getComponentId());
+        if (component == null) {
+            throw new NotFoundException("Product not found with id: " + dto.getComponentId());
+        }
+        if (productComponentRepository.findLine(productId, component.getId()) != null) {
+            throw new BadRequestException("This component is already part of the product");
+        }
+        if (productComponentRepository.reaches(component.getId(), productId)) {
+            throw new BomCycleException(productId, component.getId());
+        }
+
+        productComponentRepository.persist(new ProductComponentEntity(product, component, dto.getQuantityRequired()));
+        productRepository.touch(product);
+        catalogChanged.fire(CatalogChangedEvent.product(productId));
+        return getComponents(productId);
+    }
+
+    @Transactional
+    public List<ProductComponentDTO> updateComponentQuantity(Long productId, Long componentId, Integer newQuantity) {
+        if (newQuantity == null || newQuantity <= 0) {
+            throw new BadRequestException("Invalid quantity");
+        }
+        ProductComponentEntity line = componentLine(productId, componentId);
+        line.setQuantityRequired(newQuantity);
+        try {
+            productRepository.touch(line.getProduct());
+            productComponentRepository.flush();
+        } catch (OptimisticLockException e) {
+            throw new ConcurrentUpdateException("Product", productId);
+        }
+        catalogChanged.fire(CatalogChangedEvent.product(productId));
+        return getComponents(productId);
+    }
+
+    @Transactional
+    public void removeComponent(Long productId, Long componentId) {
+        ProductComponentEntity line = componentLine(productId, componentId);
+        productComponentRepository.delete(line);
+        productRepository.touch(line.getProduct());
+        catalogChanged.fire(CatalogChangedEvent.product(productId));
+    }
+
+    private ProductComponentEntity componentLine(Long productId, Long componentId) {
+        ProductComponentEntity line = productComponentRepository.findLine(productId, componentId);
+        if (line == null) {
+            throw new NotFoundException("Product " + componentId + " is not a component of product " + productId);
+        }
+        return line;
     }
 
     public List<ProductRawMaterialDTO> getProductRawMaterials(Long productId) {
@@ -109,39 +211,14 @@ public class ProductService {
 
         product.getProductRawMaterials().add(prm);
         productRawMaterialRepository.persist(prm);
-    }
-
-    @Transactional
-    public void updateRawMaterialQuantity(
-            Long productId,
-            Long rawMaterialId,
-            Integer newQuantity
-    ) {
-
-        ProductEntity product = findById(productId);
-
-        ProductRawMaterialEntity prm = product.getProductRawMaterials()
-                .stream()
-                .filter(p ->
-                        p.getRawMaterial().getId().equals(rawMaterialId)
-                )
-                .findFirst()
-                .orElseThrow(() ->
-                        new NotFoundException("Raw material not associated with this product")
-                );
-
-        prm.setQuantityRequired(newQuantity);
+        productRepository.touch(product);
+        catalogChanged.fire(CatalogChangedEvent.product(productId));
     }
 
     @Transactional
     public void removeRawMaterialFromProduct(Long productId, Long rawMaterialId) {
-
-        System.out.println(" Backend DELETE - Start: productId=" + productId + ", rawMaterialId=" + rawMaterialId);
-
         ProductEntity product = findById(productId);
 
-        System.out.println(" Product found: " + product.getName() + ", materials count: " + product.getProductRawMaterials().size());
-
         ProductRawMaterialEntity prm = product.getProductRawMaterials()
                 .stream()
                 .filter(p -> p.getRawMaterial().getId().equals(rawMaterialId))
@@ -150,16 +227,19 @@ public class ProductService {
                         new NotFoundException("Raw material not associated with this product")
                 );
 
-        System.out.println(" Found relationship to remove: " + prm.getId());
-
         product.getProductRawMaterials().remove(prm);
 
         productRawMaterialRepository.delete(prm);
 
-        entityManager.flush();
+        try {
+            productRepository.touch(product);
+            entityManager.flush();
+        } catch (OptimisticLockException e) {
+            throw new ConcurrentUpdateException("Product", productId);
+        }
 
         entityManager.refresh(product);
 
-        System.out.println(" Backend DELETE - Complete. Remaining materials: " + product.getProductRawMaterials().size());
+        catalogChanged.fire(CatalogChangedEvent.product(productId));
     }
-}
\ No newline at end of file
+}
@@ -1,138 +1,115 @@
 package com.production.service;
 
+import com.production.dto.PlanChangesDTO;
 import com.production.dto.ProductionItemDTO;
 import com.production.dto.ProductionPlanDTO;
-import com.production.entity.ProductEntity;
-import com.production.entity.ProductRawMaterialEntity;
-import com.production.entity.RawMaterialEntity;
-import com.production.repository.ProductRepository;
-import com.production.repository.RawMaterialRepository;
+import com.production.dto.WhereUsedDTO;
+import com.production.planning.PlanSnapshot;
+import com.production.planning.ProductionPlanEngine;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 public class ProductionPlanService {
 
     @Inject
-    ProductRepository productRepository;
+    ProductionPlanEngine productionPlanEngine;
 
     @Inject
-    RawMaterialRepository rawMaterialRepository;
+    InventoryVersion inventoryVersion;
 
-    public ProductionPlanDTO calculateProductionPlan() {
+    @ConfigProperty(name = "production-plan.max-staleness", defaultValue = "1s")
+    Duration maxStaleness;
 
-        ProductionPlanDTO plan = new ProductionPlanDTO();
-
-        List<ProductEntity> products = productRepository.findAllWithRawMaterials();
-        products.sort((p1, p2) -> p2.getPrice().compareTo(p1.getPrice()));
-
-        List<RawMaterialEntity> rawMaterials = rawMaterialRepository.listAll();
-        Map<Long, Integer> remainingStock = rawMaterials.stream()
-                .collect(Collectors.toMap(
-                        RawMaterialEntity::getId,
-                        RawMaterialEntity::getStockQuantity
-                ));
-
-        for (ProductEntity product : products) {
-            int maxQuantity = calculateMaxProductionQuantity(product, remainingStock);
-            if (maxQuantity > 0) {
-                ProductionItemDTO item = new ProductionItemDTO(
-                        product.getId(),
-                        product.getName(),
-                        maxQuantity,
-                        product.getPrice()
-                );
-                plan.addProductionItem(item);
-                updateRemainingStock(product, maxQuantity, remainingStock);
-            }
-        }
+    @ConfigProperty(name = "production-plan.refresh-timeout", defaultValue = "10s")
+    Duration refreshTimeout;
 
-        return plan;
-    }
+    /**
+     * The last published plan. It may miss the most recent changes while the engine applies them,
+     * but never ones committed longer than {@code production-plan.max-staleness} ago.
+     */
+    public PlanSnapshot currentPlan() {
+        PlanSnapshot snapshot = productionPlanEngine.snapshot();
+        long latest = inventoryVersion.current();
 
-    private int calculateMaxProductionQuantity(
-            ProductEntity product,
-            Map<Long, Integer> remainingStock
-    ) {
-        if (product.getProductRawMaterials() == null ||
-                product.getProductRawMaterials().isEmpty()) {
-            return 0;
+        if (snapshot.version() < latest && productionPlanEngine.unappliedFor().compareTo(maxStaleness) >= 0) {
+            snapshot = productionPlanEngine.awaitVersion(latest, refreshTimeout);
         }
 
-        int maxQuantity = Integer.MAX_VALUE;
-
-        for (ProductRawMaterialEntity prm : product.getProductRawMaterials()) {
-            Long rawMaterialId = prm.getRawMaterial().getId();
-            int requiredPerUnit = prm.getQuantityRequired();
-            int available = remainingStock.getOrDefault(rawMaterialId, 0);
-            int possible = available / requiredPerUnit;
-            maxQuantity = Math.min(maxQuantity, possible);
-        }
+        return snapshot;
+    }
 
-        return maxQuantity == Integer.MAX_VALUE ? 0 : maxQuantity;
+    public ProductionPlanDTO calculateProductionPlan() {
+        return currentPlan().plan();
     }
 
-    private void updateRemainingStock(
-            ProductEntity product,
-            int quantity,
-            Map<Long, Integer> remainingStock
-    ) {
-        for (ProductRawMaterialEntity prm : product.getProductRawMaterials()) {
-            Long rawMaterialId = prm.getRawMaterial().getId();
-            int totalRequired = prm.getQuantityRequired() * quantity;
-            int currentStock = remainingStock.get(rawMaterialId);
-            remainingStock.put(rawMaterialId, currentStock - totalRequired);
-        }
+    /**
+     * What changed in the plan after version {@code since}, as of {@link #currentPlan()}.
+     */
+    public PlanChangesDTO changesSince(long since) {
+        currentPlan();
+        return productionPlanEngine.changesSince(since);
     }
 
+    /**
+     * What the product could yield on its own, after every change committed before the call.
+     */
     public ProductionItemDTO calculateProductionForProduct(Long productId) {
-        ProductEntity product = productRepository.findByIdWithRawMaterials(productId);
+        awaitCommitted();
+        ProductionItemDTO item = productionPlanEngine.productionFor(productId);
 
-        if (product == null) {
+        if (item == null) {
             throw new IllegalArgumentException("Product not found with id: " + productId);
         }
 
-        List<RawMaterialEntity> rawMaterials = rawMaterialRepository.listAll();
-        Map<Long, Integer> remainingStock = rawMaterials.stream()
-                .collect(Collectors.toMap(
-                        RawMaterialEntity::getId,
-                        RawMaterialEntity::getStockQuantity
-                ));
-
-        int maxQuantity = calculateMaxProductionQuantity(product, remainingStock);
-
-        return new ProductionItemDTO(
-                product.getId(),
-                product.getName(),
-                maxQuantity,
-                product.getPrice()
-        );
+        return item;
     }
 
+    /**
+     * Whether {@code quantity} units can be made from stock not held by active reservations, after
+     * every change committed before the call. The answer does not keep the stock; reserve through
+     * {@link ReservationService} for that.
+     */
     public boolean canProduceQuantity(Long productId, Integer quantity) {
-        ProductEntity product = productRepository.findByIdWithRawMaterials(productId);
-
-        if (product == null) {
+        if (quantity == null) {
             return false;
         }
 
-        // ✅ Produto sem matérias-primas não pode ser produzido
-        if (product.getProductRawMaterials() == null ||
-                product.getProductRawMaterials().isEmpty()) {
-            return false;
-        }
+        awaitCommitted();
+        return productionPlanEngine.canProduce(productId, quantity);
+    }
 
-        for (ProductRawMaterialEntity prm : product.getProductRawMaterials()) {
-            int required = prm.getQuantityRequired() * quantity;
-            int available = prm.getRawMaterial().getStockQuantity();
-            if (available < required) {
-                return false;
-            }
-        }
+    /**
+     * Raw material units per unit of the product, sub-assemblies exploded, as of the current plan;
+     * {@code null} for an unknown product.
+     */
+    public Map<Long, Long> requirements(Long productId) {
+        currentPlan();
+        return productionPlanEngine.requirements(productId);
+    }
+
+    /**
+     * Products using the raw material, sub-assemblies exploded, as of the current plan.
+     */
+    public List<WhereUsedDTO> whereUsed(Long rawMaterialId) {
+        currentPlan();
+        return productionPlanEngine.whereUsed(rawMaterialId);
+    }
 
-        return true;
+    /**
+     * Waits, up to {@code production-plan.refresh-timeout}, until the engine has applied every change
+     * committed so far. Point queries are answered this way rather than within max-staleness: they
+     * are cheap, and a caller asking right after its own stock change expects to see it.
+     */
+    private void awaitCommitted() {
+        long latest = inventoryVersion.current();
+        if (productionPlanEngine.snapshot().version() < latest) {
+            productionPlanEngine.awaitVersion(latest, refreshTimeout);
+        }
     }
 }
@@ -1,13 +1,27 @@
 package com.production.service;
 
+import com.production.dto.RawMaterialBasicDTO;
+import com.production.dto.StockMovementDTO;
+import com.production.dto.StockMovementResultDTO;
 import com.production.entity.RawMaterialEntity;
+import com.production.event.CatalogChangedEvent;
+import com.production.event.NameChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.metrics.StockMetrics;
 import com.production.repository.RawMaterialRepository;
+import com.production.repository.RawMaterialRepository.StockUpdate;
+import com.production.reservation.ReservationLedger;
+import com.production.search.CatalogSearch;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class RawMaterialService {
@@ -15,6 +29,24 @@ public class RawMaterialService {
     @Inject
     RawMaterialRepository rawMaterialRepository;
 
+    @Inject
+    CatalogSearch catalogSearch;
+
+    @Inject
+    StockMetrics stockMetrics;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @Inject
+    Event<StockChangedEvent> stockChanged;
+
+    @Inject
+    Event<CatalogChangedEvent> catalogChanged;
+
+    @Inject
+    Event<NameChangedEvent> nameChanged;
+
     public List<RawMaterialEntity> findAll() {
         return rawMaterialRepository.listAll();
     }
@@ -27,49 +59,123 @@ public class RawMaterialService {
         return rawMaterial;
     }
 
-    public List<RawMaterialEntity> searchByName(String name) {
-        return rawMaterialRepository.findByName(name);
+    /**
+     * Raw materials whose name contains {@code name}, best matches first, with their stock. Served
+     * from the in-memory name index without a database query.
+     */
+    public List<RawMaterialBasicDTO> searchByName(String name, int limit) {
+        return catalogSearch.rawMaterials(name, limit);
     }
 
     @Transactional
     public RawMaterialEntity create(RawMaterialEntity rawMaterial) {
         rawMaterialRepository.persist(rawMaterial);
+        stockChanged.fire(StockChangedEvent.created(rawMaterial.getId(), rawMaterial.getStockQuantity(),
+                rawMaterial.getVersion()));
+        nameChanged.fire(NameChangedEvent.rawMaterial(rawMaterial.getId(), rawMaterial.getName()));
         return rawMaterial;
     }
 
     @Transactional
-    public RawMaterialEntity update(Long id, RawMaterialEntity updatedRawMaterial) {
+    public void delete(Long id) {
         RawMaterialEntity rawMaterial = findById(id);
-        rawMaterial.setName(updatedRawMaterial.getName());
-        rawMaterial.setStockQuantity(updatedRawMaterial.getStockQuantity());
-        return rawMaterial;
+        rawMaterialRepository.delete(rawMaterial);
+        catalogChanged.fire(CatalogChangedEvent.all());
+        nameChanged.fire(NameChangedEvent.rawMaterial(id, null));
     }
 
     @Transactional
-    public void delete(Long id) {
-        RawMaterialEntity rawMaterial = findById(id);
-        rawMaterialRepository.delete(rawMaterial);
+    public RawMaterialBasicDTO updateStock(Long id, Integer newQuantity) {
+        // Stock may not be set below the units held by reservations, which are read under the row lock.
+        if (rawMaterialRepository.lockStock(List.of(id)).isEmpty()) {
+            throw new NotFoundException("Raw material not found with id: " + id);
+        }
+        if (newQuantity < reservationLedger.held(id)) {
+            stockMetrics.insufficientStock(1);
+            throw new InsufficientStockException(id);
+        }
+
+        StockUpdate update = rawMaterialRepository.setStock(id, newQuantity);
+        if (update == null) {
+            throw new NotFoundException("Raw material not found with id: " + id);
+        }
+        stockMetrics.stockSet();
+        return applied(update);
     }
 
     @Transactional
-    public RawMaterialEntity updateStock(Long id, Integer newQuantity) {
-        RawMaterialEntity rawMaterial = findById(id);
-        rawMaterial.setStockQuantity(newQuantity);
-        return rawMaterial;
+    public RawMaterialBasicDTO increaseStock(Long id, Integer quantity) {
+        return adjustStock(id, quantity);
     }
 
     @Transactional
-    public RawMaterialEntity increaseStock(Long id, Integer quantity) {
-        RawMaterialEntity rawMaterial = findById(id);
-        rawMaterial.increaseStock(quantity);
-        return rawMaterial;
+    public RawMaterialBasicDTO decreaseStock(Long id, Integer quantity) {
+        return adjustStock(id, -quantity);
     }
 
     @Transactional
-    public RawMaterialEntity decreaseStock(Long id, Integer quantity) {
-        RawMaterialEntity rawMaterial = findById(id);
-        rawMaterial.decreaseStock(quantity);
-        return rawMaterial;
+    public List<StockMovementResultDTO> applyMovements(List<StockMovementDTO> movements) {
+        // Reservations only hold units under the row lock, so the rows withdrawals come from are locked
+        // before their held units are read.
+        Set<Long> withdrawn = movements.stream()
+                .filter(movement -> movement.getDelta() < 0)
+                .map(StockMovementDTO::getRawMaterialId)
+                .collect(Collectors.toSet());
+        if (!withdrawn.isEmpty()) {
+            rawMaterialRepository.lockStock(withdrawn);
+        }
+
+        List<StockChangedEvent> stockChanges = new ArrayList<>();
+        List<StockMovementResultDTO> results = rawMaterialRepository.applyMovements(
+                movements, reservationLedger::held, stockChanges::add);
+
+        int applied = 0;
+        int insufficient = 0;
+        for (StockMovementResultDTO result : results) {
+            if (result.isApplied()) {
+                applied++;
+            } else if (StockMovementResultDTO.INSUFFICIENT_STOCK.equals(result.getError())) {
+                insufficient++;
+            }
+        }
+        stockMetrics.movementsApplied(applied);
+        stockMetrics.insufficientStock(insufficient);
+
+        stockChanges.forEach(stockChanged::fire);
+        return results;
+    }
+
+    private RawMaterialBasicDTO adjustStock(Long id, int delta) {
+        // Withdrawals may not dip into units held by reservations. Those are only held under the row
+        // lock, so it is taken before they are read.
+        long floor = 0;
+        if (delta < 0) {
+            if (rawMaterialRepository.lockStock(List.of(id)).isEmpty()) {
+                throw new NotFoundException("Raw material not found with id: " + id);
+            }
+            floor = reservationLedger.held(id);
+        }
+
+        StockUpdate update = rawMaterialRepository.adjustStock(id, delta, floor);
+        if (update == null) {
+            if (rawMaterialRepository.count("id", id) == 0) {
+                throw new NotFoundException("Raw material not found with id: " + id);
+            }
+            stockMetrics.insufficientStock(1);
+            throw new InsufficientStockException(id);
+        }
+        if (delta >= 0) {
+            stockMetrics.stockIncreased();
+        } else {
+            stockMetrics.stockDecreased();
+        }
+        return applied(update);
+    }
+
+    private RawMaterialBasicDTO applied(StockUpdate update) {
+        stockChanged.fire(new StockChangedEvent(update.id(), update.previousQuantity(), update.stockQuantity(),
+                update.version()));
+        return new RawMaterialBasicDTO(update.id(), update.name(), update.stockQuantity());
     }
 
     public List<RawMaterialEntity> findLowStock(Integer threshold) {
@@ -0,0 +1,12 @@
+package com.production.service;
+
+import com.production.entity.ReservationEntity;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+public class ReservationNotActiveException extends ClientErrorException {
+
+    public ReservationNotActiveException(Long reservationId, ReservationEntity.Status status) {
+        super("Reservation " + reservationId + " is " + status, Response.Status.CONFLICT);
+    }
+}
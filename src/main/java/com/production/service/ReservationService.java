@@ -0,0 +1,184 @@
+package com.production.service;
+
+import com.production.dto.AvailabilityDTO;
+import com.production.dto.ReservationDTO;
+import com.production.entity.RawMaterialEntity;
+import com.production.entity.ReservationEntity;
+import com.production.event.ReservationChangedEvent;
+import com.production.event.StockChangedEvent;
+import com.production.repository.ProductRepository;
+import com.production.repository.RawMaterialRepository;
+import com.production.repository.RawMaterialRepository.StockUpdate;
+import com.production.repository.ReservationRepository;
+import com.production.reservation.ReservationLedger;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reservations of raw materials for pending production orders. Reserving a product quantity holds
+ * every raw material of its bill of materials, sub-assemblies exploded, at once, or none of them;
+ * committing consumes the held stock, releasing or letting the TTL run out gives it back.
+ * Availability is checked under row locks on just the materials involved, against stock minus
+ * {@link ReservationLedger#held}.
+ */
+@ApplicationScoped
+public class ReservationService {
+
+    @Inject
+    ReservationRepository reservationRepository;
+
+    @Inject
+    ProductRepository productRepository;
+
+    @Inject
+    RawMaterialRepository rawMaterialRepository;
+
+    @Inject
+    ProductionPlanService productionPlanService;
+
+    @Inject
+    ReservationLedger reservationLedger;
+
+    @Inject
+    Event<ReservationChangedEvent> reservationChanged;
+
+    @Inject
+    Event<StockChangedEvent> stockChanged;
+
+    @ConfigProperty(name = "reservations.default-ttl", defaultValue = "15m")
+    Duration defaultTtl;
+
+    @ConfigProperty(name = "reservations.max-ttl", defaultValue = "24h")
+    Duration maxTtl;
+
+    public ReservationDTO findById(Long id) {
+        return new ReservationDTO(find(id));
+    }
+
+    public AvailabilityDTO availability(Long rawMaterialId) {
+        RawMaterialEntity rawMaterial = rawMaterialRepository.findById(rawMaterialId);
+        if (rawMaterial == null) {
+            throw new NotFoundException("Raw material not found with id: " + rawMaterialId);
+        }
+        return new AvailabilityDTO(rawMaterialId, rawMaterial.getStockQuantity(), reservationLedger.held(rawMaterialId));
+    }
+
+    @Transactional
+    public ReservationDTO reserve(Long productId, Integer quantity, Long ttlSeconds) {
+        if (productId == null || quantity == null || quantity <= 0) {
+            throw new BadRequestException("productId and a positive quantity are required");
+        }
+        Duration ttl = ttlSeconds == null ? defaultTtl : Duration.ofSeconds(ttlSeconds);
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxTtl) > 0) {
+            throw new BadRequestException("ttlSeconds must be between 1 and " + maxTtl.toSeconds());
+        }
+
+        if (productRepository.findById(productId) == null) {
+            throw new NotFoundException("Product not found with id: " + productId);
+        }
+
+        Map<Long, Long> requirements = productionPlanService.requirements(productId);
+        Map<Long, Integer> materials = new TreeMap<>();
+        if (requirements != null) {
+            for (Map.Entry<Long, Long> requirement : requirements.entrySet()) {
+                if (requirement.getValue() > Integer.MAX_VALUE / quantity) {
+                    // More than any stock quantity can hold.
+                    throw new InsufficientStockException(requirement.getKey());
+                }
+                materials.put(requirement.getKey(), (int) (requirement.getValue() * quantity));
+            }
+        }
+        if (materials.isEmpty()) {
+            throw new BadRequestException("Product " + productId + " has no complete bill of materials");
+        }
+
+        Map<Long, Integer> stock = rawMaterialRepository.lockStock(materials.keySet());
+        for (Map.Entry<Long, Integer> material : materials.entrySet()) {
+            Integer onHand = stock.get(material.getKey());
+            if (onHand == null || onHand - reservationLedger.held(material.getKey()) < material.getValue()) {
+                throw new InsufficientStockException(material.getKey());
+            }
+        }
+
+        Instant now = Instant.now();
+        ReservationEntity reservation = new ReservationEntity(productId, quantity, materials, now, now.plus(ttl));
+        reservationRepository.persist(reservation);
+
+        // Held before the row locks are released, so the next reservation already sees it.
+        reservationLedger.hold(reservation.getId(), materials);
+        reservationChanged.fire(ReservationChangedEvent.held(reservation.getId(), materials));
+        return new ReservationDTO(reservation);
+    }
+
+    /**
+     * Consumes the held stock. The reservation's own hold is released by the same commit, so other
+     * reservations' holds are still protected.
+     */
+    @Transactional
+    public ReservationDTO commit(Long id) {
+        ReservationEntity reservation = findActive(id);
+        Map<Long, Integer> materials = reservation.getMaterials();
+
+        // Locked before the other reservations' holds are read, so none can be added in between.
+        rawMaterialRepository.lockStock(materials.keySet());
+        for (Long rawMaterialId : new TreeMap<>(materials).keySet()) {
+            int units = materials.get(rawMaterialId);
+            long othersHeld = Math.max(0, reservationLedger.held(rawMaterialId) - units);
+            StockUpdate update = rawMaterialRepository.adjustStock(rawMaterialId, -units, othersHeld);
+            if (update == null) {
+                throw new InsufficientStockException(rawMaterialId);
+            }
+            stockChanged.fire(new StockChangedEvent(rawMaterialId, update.previousQuantity(), update.stockQuantity(),
+                    update.version()));
+        }
+
+        return end(reservation, ReservationEntity.Status.COMMITTED);
+    }
+
+    @Transactional
+    public ReservationDTO release(Long id) {
+        return end(findActive(id), ReservationEntity.Status.RELEASED);
+    }
+
+    private ReservationDTO end(ReservationEntity reservation, ReservationEntity.Status status) {
+        reservation.setStatus(status);
+        reservationChanged.fire(ReservationChangedEvent.ended(reservation.getId(), reservation.getMaterials()));
+        return new ReservationDTO(reservation);
+    }
+
+    private ReservationEntity find(Long id) {
+        ReservationEntity reservation = reservationRepository.findById(id);
+        if (reservation == null) {
+            throw new NotFoundException("Reservation not found with id: " + id);
+        }
+        return reservation;
+    }
+
+    /**
+     * Locks the reservation, which must be active. One that is past its TTL but not swept yet counts
+     * as expired.
+     */
+    private ReservationEntity findActive(Long id) {
+        ReservationEntity reservation = reservationRepository.findByIdForUpdate(id);
+        if (reservation == null) {
+            throw new NotFoundException("Reservation not found with id: " + id);
+        }
+        if (reservation.getStatus() != ReservationEntity.Status.ACTIVE) {
+            throw new ReservationNotActiveException(id, reservation.getStatus());
+        }
+        if (!reservation.getExpiresAt().isAfter(Instant.now())) {
+            throw new ReservationNotActiveException(id, ReservationEntity.Status.EXPIRED);
+        }
+        return reservation;
+    }
+}
@@ -0,0 +1,136 @@
+package com.production.service;
+
+import com.production.dto.PriceChangeDTO;
+import com.production.dto.ScenarioDTO;
+import com.production.dto.ScenarioResultDTO;
+import com.production.dto.StockMovementDTO;
+import com.production.planning.ProductionPlanEngine;
+import com.production.planning.ScenarioBase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates what-if scenarios against the current plan. Every scenario of a request shares one
+ * {@link ScenarioBase}, and they are planned in parallel on a dedicated fork/join pool of
+ * {@code scenarios.parallelism} threads, so a batch costs about as much as its share of plans per
+ * core and never competes with the common pool.
+ */
+@ApplicationScoped
+public class ScenarioService {
+
+    @Inject
+    ProductionPlanService productionPlanService;
+
+    @Inject
+    ProductionPlanEngine productionPlanEngine;
+
+    @ConfigProperty(name = "scenarios.parallelism", defaultValue = "0")
+    int parallelism;
+
+    @ConfigProperty(name = "scenarios.max-batch", defaultValue = "1000")
+    int maxBatch;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("scenario-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The plan under each scenario, in request order, and the version of the plan they were applied to.
+     */
+    public Evaluation evaluate(List<ScenarioDTO> scenarios) {
+        if (scenarios == null || scenarios.isEmpty() || scenarios.size() > maxBatch) {
+            throw new BadRequestException("Between 1 and " + maxBatch + " scenarios are required");
+        }
+
+        productionPlanService.currentPlan();
+        ScenarioBase base = productionPlanEngine.scenarioBase();
+
+        // Resolved on the calling thread, so invalid input fails the request before any planning.
+        List<ScenarioBase.Overlay> overlays = scenarios.stream().map(scenario -> overlay(base, scenario)).toList();
+
+        List<ScenarioResultDTO> results = pool.submit(() -> IntStream.range(0, overlays.size())
+                .parallel()
+                .mapToObj(i -> {
+                    ScenarioBase.Result result = base.evaluate(overlays.get(i));
+                    return new ScenarioResultDTO(scenarios.get(i).getName(), result.items(), result.totalValue(),
+                            result.totalValue().subtract(base.totalValue()));
+                })
+                .toList()
+        ).join();
+
+        return new Evaluation(base.version(), results);
+    }
+
+    private static ScenarioBase.Overlay overlay(ScenarioBase base, ScenarioDTO scenario) {
+        if (scenario == null) {
+            throw new BadRequestException("Scenarios must not be null");
+        }
+
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        for (StockMovementDTO movement : nonNull(scenario.getStock())) {
+            if (movement == null || movement.getRawMaterialId() == null || movement.getDelta() == null) {
+                throw new BadRequestException("Every stock change needs rawMaterialId and delta");
+            }
+            int material = base.materialOf(movement.getRawMaterialId());
+            if (material < 0) {
+                throw new NotFoundException("Raw material not found with id: " + movement.getRawMaterialId());
+            }
+            deltas.merge(material, (long) movement.getDelta(), Long::sum);
+        }
+
+        // The last price given for a product wins.
+        Map<Integer, BigDecimal> prices = new LinkedHashMap<>();
+        for (PriceChangeDTO change : nonNull(scenario.getPrices())) {
+            if (change == null || change.getProductId() == null || change.getPrice() == null
+                    || change.getPrice().signum() < 0) {
+                throw new BadRequestException("Every price change needs productId and a non-negative price");
+            }
+            int row = base.rowOf(change.getProductId());
+            if (row < 0) {
+                throw new NotFoundException("Product not found with id: " + change.getProductId());
+            }
+            prices.put(row, change.getPrice());
+        }
+
+        return new ScenarioBase.Overlay(
+                deltas.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                deltas.values().stream().mapToLong(Long::longValue).toArray(),
+                prices.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                prices.values().toArray(BigDecimal[]::new)
+        );
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    public record Evaluation(long version, List<ScenarioResultDTO> results) {
+    }
+}
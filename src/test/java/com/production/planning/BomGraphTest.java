@@ -0,0 +1,142 @@
+package com.production.planning;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BomGraphTest {
+
+    private static final long[] NO_COMPONENTS = new long[0];
+    private static final int[] NONE = new int[0];
+
+    @Test
+    @DisplayName("Sub-assemblies should be exploded into raw materials")
+    public void testTwoLevels() {
+        BomGraph bom = new BomGraph();
+        bom.put(1, new int[]{0}, new int[]{2}, NO_COMPONENTS, NONE);
+        bom.put(2, new int[]{0, 1}, new int[]{1, 5}, new long[]{1}, new int[]{3});
+
+        BomGraph.Requirements requirements = bom.requirements(2);
+        assertArrayEquals(new int[]{0, 1}, requirements.materials());
+        assertArrayEquals(new long[]{7, 5}, requirements.quantities());
+    }
+
+    @Test
+    @DisplayName("A component shared by two branches should be counted through both")
+    public void testDiamond() {
+        BomGraph bom = new BomGraph();
+        bom.put(1, new int[]{3}, new int[]{1}, NO_COMPONENTS, NONE);
+        bom.put(2, NONE, NONE, new long[]{1}, new int[]{2});
+        bom.put(3, NONE, NONE, new long[]{1}, new int[]{5});
+        bom.put(4, NONE, NONE, new long[]{2, 3}, new int[]{1, 1});
+
+        assertArrayEquals(new int[]{3}, bom.requirements(4).materials());
+        assertArrayEquals(new long[]{7}, bom.requirements(4).quantities());
+    }
+
+    @Test
+    @DisplayName("Products on a cycle should have no requirements")
+    public void testCycle() {
+        BomGraph bom = new BomGraph();
+        bom.put(1, new int[]{0}, new int[]{1}, new long[]{2}, new int[]{1});
+        bom.put(2, new int[]{0}, new int[]{1}, new long[]{1}, new int[]{1});
+        bom.put(3, new int[]{0}, new int[]{1}, new long[]{1}, new int[]{1});
+
+        assertSame(BomGraph.NONE, bom.requirements(1));
+        assertSame(BomGraph.NONE, bom.requirements(2));
+        assertSame(BomGraph.NONE, bom.requirements(3));
+
+        bom.put(2, new int[]{0}, new int[]{1}, NO_COMPONENTS, NONE);
+        assertArrayEquals(new long[]{2}, bom.requirements(1).quantities());
+        assertArrayEquals(new long[]{3}, bom.requirements(3).quantities());
+    }
+
+    @Test
+    @DisplayName("A product using an unknown or unproducible component should have no requirements")
+    public void testMissingComponent() {
+        BomGraph bom = new BomGraph();
+        bom.put(1, new int[]{0}, new int[]{1}, new long[]{99}, new int[]{1});
+        bom.put(2, NONE, NONE, NO_COMPONENTS, NONE);
+        bom.put(3, new int[]{0}, new int[]{1}, new long[]{2}, new int[]{1});
+
+        assertSame(BomGraph.NONE, bom.requirements(1));
+        assertSame(BomGraph.NONE, bom.requirements(2));
+        assertSame(BomGraph.NONE, bom.requirements(3));
+        assertSame(BomGraph.NONE, bom.requirements(42));
+    }
+
+    @Test
+    @DisplayName("Changing a component should return and refresh every product above it")
+    public void testInvalidation() {
+        BomGraph bom = new BomGraph();
+        bom.put(1, new int[]{0}, new int[]{1}, NO_COMPONENTS, NONE);
+        bom.put(2, NONE, NONE, new long[]{1}, new int[]{2});
+        bom.put(3, NONE, NONE, new long[]{2}, new int[]{3});
+        bom.put(4, new int[]{1}, new int[]{1}, NO_COMPONENTS, NONE);
+        assertArrayEquals(new long[]{6}, bom.requirements(3).quantities());
+
+        assertEquals(Set.of(1L, 2L, 3L), bom.put(1, new int[]{0}, new int[]{2}, NO_COMPONENTS, NONE));
+        assertArrayEquals(new long[]{12}, bom.requirements(3).quantities());
+
+        assertEquals(Set.of(2L, 3L), bom.remove(1));
+        assertSame(BomGraph.NONE, bom.requirements(3));
+        assertArrayEquals(new long[]{1}, bom.requirements(4).quantities());
+    }
+
+    @Test
+    @DisplayName("Requirements too large for a long should count as unproducible")
+    public void testOverflow() {
+        BomGraph bom = new BomGraph();
+        bom.put(0, new int[]{0}, new int[]{Integer.MAX_VALUE}, NO_COMPONENTS, NONE);
+        for (long id = 1; id <= 3; id++) {
+            bom.put(id, NONE, NONE, new long[]{id - 1}, new int[]{Integer.MAX_VALUE});
+        }
+
+        assertFalse(bom.requirements(1).isEmpty());
+        assertSame(BomGraph.NONE, bom.requirements(3));
+    }
+
+    @Test
+    @DisplayName("A deep catalog should be exploded once and then read from the memo")
+    public void testDeepCatalog() {
+        Random random = new Random(11);
+        int levels = 10;
+        int perLevel = 10_000;
+        int materials = 50;
+        BomGraph bom = new BomGraph();
+        for (int level = 0; level < levels; level++) {
+            for (int i = 0; i < perLevel; i++) {
+                long id = (long) level * perLevel + i;
+                int[] lines = {random.nextInt(materials)};
+                long[] components = NO_COMPONENTS;
+                int[] quantities = NONE;
+                if (level > 0) {
+                    components = new long[]{(long) (level - 1) * perLevel + random.nextInt(perLevel),
+                            (long) (level - 1) * perLevel + random.nextInt(perLevel)};
+                    quantities = new int[]{1, 1};
+                }
+                bom.put(id, lines, new int[]{1}, components, quantities);
+            }
+        }
+
+        long units = 0;
+        for (long id = 0; id < (long) levels * perLevel; id++) {
+            BomGraph.Requirements requirements = bom.requirements(id);
+            assertFalse(requirements.isEmpty());
+            for (long quantity : requirements.quantities()) {
+                units += quantity;
+            }
+        }
+
+        // Every top level product has one unit on its own level plus twice each level below.
+        BomGraph.Requirements top = bom.requirements((long) (levels - 1) * perLevel);
+        assertEquals((1L << levels) - 1, Arrays.stream(top.quantities()).sum());
+        assertTrue(units > 0);
+        assertSame(top, bom.requirements((long) (levels - 1) * perLevel));
+    }
+}
@@ -0,0 +1,253 @@
+package com.production.planning;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlanningKernelTest {
+
+    @Test
+    @DisplayName("Rows should be ordered by price, highest first")
+    public void testRowsOrderedByPrice() {
+        PlanningKernel kernel = PlanningKernel.compile(List.of(
+                product(1, "10.00", new int[]{0}, new int[]{1}),
+                product(2, "30.00", new int[]{0}, new int[]{1}),
+                product(3, "20.00", new int[]{1}, new int[]{1})
+        ), 2);
+
+        assertEquals(2L, kernel.productId(0));
+        assertEquals(3L, kernel.productId(1));
+        assertEquals(1L, kernel.productId(2));
+        assertEquals(0, kernel.firstConsumer(0));
+        assertEquals(1, kernel.firstConsumer(1));
+        assertEquals(PlanningKernel.NO_CONSUMER, kernel.firstConsumer(5));
+    }
+
+    @Test
+    @DisplayName("Greedy walk should match the reference implementation")
+    public void testAllocateMatchesReference() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int materials = 1 + random.nextInt(30);
+            List<PlanningKernel.Product> products = randomCatalog(random, 1 + random.nextInt(200), materials);
+            long[] stock = randomStock(random, materials);
+
+            PlanningKernel kernel = PlanningKernel.compile(products, materials);
+            int[] planned = new int[kernel.size()];
+            long[] remaining = stock.clone();
+            kernel.allocate(0, planned, remaining);
+
+            assertArrayEquals(referencePlan(products, stock.clone()), toIdOrder(kernel, planned));
+        }
+    }
+
+    @Test
+    @DisplayName("Re-walking a suffix should give the same result as a full walk")
+    public void testSuffixReplanMatchesFullWalk() {
+        Random random = new Random(7);
+        int materials = 20;
+        List<PlanningKernel.Product> products = randomCatalog(random, 300, materials);
+        PlanningKernel kernel = PlanningKernel.compile(products, materials);
+
+        long[] stock = randomStock(random, materials);
+        int[] planned = new int[kernel.size()];
+        long[] remaining = stock.clone();
+        kernel.allocate(0, planned, remaining);
+
+        for (int change = 0; change < 200; change++) {
+            int material = random.nextInt(materials);
+            long delta = random.nextInt(200) - 100;
+            if (stock[material] + delta < 0) {
+                delta = -stock[material];
+            }
+            stock[material] += delta;
+            remaining[material] += delta;
+
+            int start = kernel.firstConsumer(material);
+            if (start < kernel.size()) {
+                kernel.release(start, planned, remaining);
+                kernel.allocate(start, planned, remaining);
+            }
+
+            int[] expected = new int[kernel.size()];
+            long[] expectedRemaining = stock.clone();
+            kernel.allocate(0, expected, expectedRemaining);
+
+            assertArrayEquals(expected, planned);
+            assertArrayEquals(expectedRemaining, remaining);
+        }
+    }
+
+    @Test
+    @DisplayName("Where-used index should list every consumer of a material in row order")
+    public void testWhereUsed() {
+        PlanningKernel kernel = PlanningKernel.compile(List.of(
+                product(1, "10.00", new int[]{0, 2}, new int[]{1, 4}),
+                product(2, "30.00", new int[]{2}, new int[]{3}),
+                product(3, "20.00", new int[]{0}, new int[]{2})
+        ), 4);
+
+        assertEquals(2, kernel.consumersTo(2) - kernel.consumersFrom(2));
+        assertEquals(2L, kernel.productId(kernel.consumerRow(kernel.consumersFrom(2))));
+        assertEquals(3L, kernel.consumerQuantity(kernel.consumersFrom(2)));
+        assertEquals(1L, kernel.productId(kernel.consumerRow(kernel.consumersFrom(2) + 1)));
+        assertEquals(4L, kernel.consumerQuantity(kernel.consumersFrom(2) + 1));
+        assertEquals(kernel.consumersFrom(3), kernel.consumersTo(3));
+        assertEquals(PlanningKernel.NO_CONSUMER, kernel.firstConsumer(3));
+        assertEquals(kernel.consumersFrom(9), kernel.consumersTo(9));
+    }
+
+    @Test
+    @DisplayName("Sparse replan should match a full walk and report exactly the changed rows")
+    public void testSparseReplanMatchesFullWalk() {
+        Random random = new Random(19);
+        PlanningKernel.Scratch scratch = new PlanningKernel.Scratch();
+        for (int round = 0; round < 20; round++) {
+            int materials = 1 + random.nextInt(40);
+            PlanningKernel kernel = PlanningKernel.compile(randomCatalog(random, 1 + random.nextInt(300), materials),
+                    materials);
+            long[] stock = randomStock(random, materials);
+            int[] planned = new int[kernel.size()];
+            long[] remaining = stock.clone();
+            kernel.allocate(0, planned, remaining);
+
+            for (int change = 0; change < 50; change++) {
+                int[] changed = random.ints(0, materials).distinct()
+                        .limit(1 + random.nextInt(Math.min(3, materials)))
+                        .toArray();
+                for (int material : changed) {
+                    long delta = Math.max(random.nextInt(200) - 100, -stock[material]);
+                    stock[material] += delta;
+                    remaining[material] += delta;
+                }
+
+                int[] before = planned.clone();
+                int[] rows = kernel.replan(changed, changed.length, planned, stock, remaining, scratch);
+
+                int[] expected = new int[kernel.size()];
+                long[] expectedRemaining = stock.clone();
+                kernel.allocate(0, expected, expectedRemaining);
+                assertArrayEquals(expected, planned);
+                assertArrayEquals(expectedRemaining, remaining);
+
+                int[] differing = new int[kernel.size()];
+                int count = 0;
+                for (int row = 0; row < kernel.size(); row++) {
+                    if (before[row] != planned[row]) {
+                        differing[count++] = row;
+                    }
+                }
+                assertArrayEquals(Arrays.copyOf(differing, count), rows);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Single product calculations should use the stock on hand")
+    public void testSingleProduct() {
+        PlanningKernel kernel = PlanningKernel.compile(List.of(
+                product(1, "50.00", new int[]{0, 1}, new int[]{2, 5}),
+                product(2, "10.00", new int[0], new int[0])
+        ), 2);
+        long[] stock = {9, 26};
+
+        assertEquals(4, kernel.maxQuantity(kernel.rowOf(1), stock));
+        assertTrue(kernel.canProduce(kernel.rowOf(1), 4, stock));
+        assertFalse(kernel.canProduce(kernel.rowOf(1), 5, stock));
+        assertEquals(0, kernel.maxQuantity(kernel.rowOf(2), stock));
+        assertFalse(kernel.canProduce(kernel.rowOf(2), 1, stock));
+        assertEquals(-1, kernel.rowOf(3));
+    }
+
+    @Test
+    @DisplayName("Repriced walk order should match a kernel compiled with the new prices")
+    public void testRepricedOrderMatchesRecompile() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            int materials = 1 + random.nextInt(20);
+            List<PlanningKernel.Product> products = randomCatalog(random, 1 + random.nextInt(200), materials);
+            PlanningKernel kernel = PlanningKernel.compile(products, materials);
+
+            int[] rows = random.ints(0, kernel.size()).distinct()
+                    .limit(random.nextInt(Math.min(10, kernel.size()) + 1))
+                    .toArray();
+            BigDecimal[] prices = new BigDecimal[rows.length];
+            List<PlanningKernel.Product> repriced = new ArrayList<>(products);
+            for (int i = 0; i < rows.length; i++) {
+                prices[i] = new BigDecimal((1 + random.nextInt(100)) + ".00");
+                PlanningKernel.Product product = repriced.get((int) kernel.productId(rows[i]));
+                repriced.set((int) product.id(), new PlanningKernel.Product(product.id(), product.name(), prices[i],
+                        product.materials(), product.quantities()));
+            }
+            PlanningKernel expected = PlanningKernel.compile(repriced, materials);
+
+            int[] order = kernel.order(rows, prices);
+            long[] walked = Arrays.stream(order).mapToLong(kernel::productId).toArray();
+            long[] sorted = new long[expected.size()];
+            Arrays.setAll(sorted, expected::productId);
+            assertArrayEquals(sorted, walked);
+
+            long[] stock = randomStock(random, materials);
+            int[] planned = new int[kernel.size()];
+            kernel.allocate(order, planned, stock.clone());
+            assertArrayEquals(referencePlan(repriced, stock.clone()), toIdOrder(kernel, planned));
+        }
+    }
+
+    private static int[] referencePlan(List<PlanningKernel.Product> products, long[] stock) {
+        int[] result = new int[products.size()];
+        List<PlanningKernel.Product> walk = new ArrayList<>(products);
+        walk.sort(Comparator.comparing(PlanningKernel.Product::price).reversed()
+                .thenComparingLong(PlanningKernel.Product::id));
+        for (PlanningKernel.Product product : walk) {
+            long max = product.materials().length == 0 ? 0 : Long.MAX_VALUE;
+            for (int j = 0; j < product.materials().length; j++) {
+                max = Math.min(max, stock[product.materials()[j]] / product.quantities()[j]);
+            }
+            for (int j = 0; j < product.materials().length; j++) {
+                stock[product.materials()[j]] -= max * product.quantities()[j];
+            }
+            result[(int) product.id()] = (int) max;
+        }
+        return result;
+    }
+
+    private static int[] toIdOrder(PlanningKernel kernel, int[] planned) {
+        int[] result = new int[kernel.size()];
+        for (int row = 0; row < kernel.size(); row++) {
+            result[(int) kernel.productId(row)] = planned[row];
+        }
+        return result;
+    }
+
+    private static List<PlanningKernel.Product> randomCatalog(Random random, int size, int materials) {
+        List<PlanningKernel.Product> products = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            int lines = random.nextInt(Math.min(5, materials) + 1);
+            int[] bom = random.ints(0, materials).distinct().limit(lines).toArray();
+            int[] quantities = random.ints(lines, 1, 10).toArray();
+            String price = (1 + random.nextInt(100)) + ".00";
+            products.add(product(id, price, bom, quantities));
+        }
+        return products;
+    }
+
+    private static long[] randomStock(Random random, int materials) {
+        long[] stock = new long[materials];
+        Arrays.setAll(stock, i -> random.nextInt(500));
+        return stock;
+    }
+
+    private static PlanningKernel.Product product(long id, String price, int[] materials, int[] quantities) {
+        return new PlanningKernel.Product(id, "Product " + id, new BigDecimal(price), materials,
+                Arrays.stream(quantities).asLongStream().toArray());
+    }
+}
@@ -1,22 +1,48 @@
 package com.production.resource;
 
 import com.production.entity.ProductEntity;
+import com.production.repository.ProductRawMaterialRepository;
+import com.production.service.ConcurrentUpdateException;
+import com.production.service.OptimisticRetry;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class ProductResourceTest {
 
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    OptimisticRetry optimisticRetry;
+
+    @Inject
+    ProductRawMaterialRepository productRawMaterialRepository;
+
     @Test
     @Order(1)
     @DisplayName("Should get all products")
@@ -260,4 +286,670 @@ public class ProductResourceTest {
                 .contentType(ContentType.JSON)
                 .body("size()", greaterThan(0));
     }
+
+    @Test
+    @Order(13)
+    @DisplayName("Should page through products with a cursor")
+    public void testKeysetPagination() {
+        Integer first = null;
+        for (int i = 1; i <= 3; i++) {
+            Map<String, Object> product = new HashMap<>();
+            product.put("name", "Paged Product " + i);
+            product.put("value", 10.0);
+
+            Integer id = given()
+                    .contentType(ContentType.JSON)
+                    .body(product)
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+            if (first == null) {
+                first = id;
+            }
+        }
+
+        given()
+                .when()
+                .get("/products?after=" + (first - 1) + "&limit=2")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("[0].id", is(first))
+                .header("X-Next-Cursor", notNullValue());
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Listing products should use a constant number of SQL statements")
+    public void testListingStatementCountIsConstant() {
+        Integer smallCatalog = createProductsWithMaterials(2);
+        long smallStatements = statementsToList(smallCatalog, 2);
+
+        Integer largeCatalog = createProductsWithMaterials(20);
+        long largeStatements = statementsToList(largeCatalog, 20);
+
+        assertTrue(smallStatements <= 2, "Expected at most 2 statements, got " + smallStatements);
+        assertEquals(smallStatements, largeStatements);
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("Should export products with their BOM as NDJSON")
+    public void testExport() {
+        Integer firstId = createProductsWithMaterials(3);
+
+        String body = given()
+                .when()
+                .get("/products/export")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("application/x-ndjson"))
+                .extract()
+                .asString();
+
+        List<JsonPath> lines = body.lines().map(JsonPath::from).toList();
+        assertEquals(productCount(), lines.size());
+
+        JsonPath exported = lines.stream()
+                .filter(line -> firstId.equals(line.getInt("id")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Listing Product 0", exported.getString("name"));
+        assertEquals(1, exported.getList("productRawMaterials").size());
+        assertEquals(1, exported.getInt("productRawMaterials[0].quantityRequired"));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("Should import bills of materials from CSV and report rejected rows")
+    public void testCsvImport() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "BOM Import Wood", "stockQuantity", 100))
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201);
+
+        String csv = """
+                product_name,product_price,raw_material_name,quantity_required
+                BOM Import Table,120.50,BOM Import Wood,4
+                BOM Import Table,,BOM Import Unknown,1
+                BOM Import Chair,,BOM Import Wood,2
+                BOM Import Stool,30,BOM Import Wood,0
+                """;
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/products/import")
+                .then()
+                .statusCode(200)
+                .body("received", is(4))
+                .body("inserted", is(1))
+                .body("updated", is(0))
+                .body("rejected", is(3))
+                .body("rejectedRows.line", hasItems(3, 4, 5))
+                .body("rejectedRows.error", hasItems("UNKNOWN_RAW_MATERIAL", "PRICE_REQUIRED", "INVALID_QUANTITY"));
+
+        JsonPath table = given()
+                .when()
+                .get("/products/export")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString()
+                .lines()
+                .map(JsonPath::from)
+                .filter(line -> "BOM Import Table".equals(line.getString("name")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(120.5f, table.getFloat("value"));
+        assertEquals(4, table.getInt("productRawMaterials[0].quantityRequired"));
+
+        given()
+                .contentType("text/csv")
+                .body("product_name,product_price,raw_material_name,quantity_required\nBOM Import Table,,BOM Import Wood,6\n")
+                .when()
+                .post("/products/import")
+                .then()
+                .statusCode(200)
+                .body("inserted", is(0))
+                .body("updated", is(1));
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Should search products by name, best match first, following renames")
+    public void testSearch() {
+        Integer desk = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Searchable Desk", "value", 80.0))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Desk Searchable", "value", 90.0))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201);
+
+        given()
+                .when()
+                .get("/products/search?name=desk sea&limit=5")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].name", is("Desk Searchable"));
+
+        given()
+                .when()
+                .get("/products/search?name=searchable&limit=1")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].id", is(desk));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Renamed Writing Table", "value", 80.0))
+                .when()
+                .put("/products/" + desk)
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get("/products/search?name=writing")
+                .then()
+                .statusCode(200)
+                .body("id", hasItem(desk));
+
+        given()
+                .when()
+                .get("/products/search")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Reactive product listing should return the same JSON and cursor as the blocking one")
+    public void testReactiveListingMatchesBlocking() {
+        Integer first = createProductsWithMaterials(3);
+        String query = "?after=" + (first - 1) + "&limit=2";
+
+        Response blocking = given().when().get("/products" + query);
+        Response reactive = given().when().get("/reactive/products" + query);
+
+        assertEquals(200, blocking.statusCode());
+        assertEquals(200, reactive.statusCode());
+        assertEquals(blocking.asString(), reactive.asString());
+        assertEquals(blocking.header("X-Next-Cursor"), reactive.header("X-Next-Cursor"));
+        assertEquals(1, reactive.jsonPath().getList("[0].productRawMaterials").size());
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("Repeated product lookups should be served from the second-level and query caches")
+    public void testProductLookupIsCached() {
+        Integer productId = createProductsWithMaterials(1);
+        given().when().get("/production-plan").then().statusCode(200);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        given().when().get("/products/" + productId).then().statusCode(200);
+        long coldStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        given()
+                .when()
+                .get("/products/" + productId)
+                .then()
+                .statusCode(200)
+                .body("productRawMaterials.size()", is(1));
+
+        assertTrue(coldStatements > 0);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+
+        given()
+                .when()
+                .get("/q/metrics")
+                .then()
+                .statusCode(200)
+                .body(containsString("hibernate_second_level_cache_requests"))
+                .body(containsString("hibernate_cache_query_requests"));
+    }
+
+    @Test
+    @Order(20)
+    @DisplayName("Cached products should reflect changes made by CSV imports")
+    public void testImportInvalidatesCache() {
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Cache Import Wood", "stockQuantity", 100))
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201);
+
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Cache Import Chair", "value", 10.0))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        for (int i = 0; i < 2; i++) {
+            given()
+                    .when()
+                    .get("/products/" + productId)
+                    .then()
+                    .statusCode(200)
+                    .body("productRawMaterials.size()", is(0));
+        }
+
+        given()
+                .contentType("text/csv")
+                .body("""
+                        product_name,product_price,raw_material_name,quantity_required
+                        Cache Import Chair,25.00,Cache Import Wood,3
+                        """)
+                .when()
+                .post("/products/import")
+                .then()
+                .statusCode(200)
+                .body("inserted", is(1));
+
+        given()
+                .when()
+                .get("/products/" + productId)
+                .then()
+                .statusCode(200)
+                .body("value", is(25.0f))
+                .body("productRawMaterials.size()", is(1))
+                .body("productRawMaterials[0].quantityRequired", is(3));
+    }
+
+    @Test
+    @Order(21)
+    @DisplayName("Product and listing ETags should answer 304 until the product or its raw materials change")
+    public void testProductEntityTags() {
+        Integer productId = createProductsWithMaterials(1);
+        given().when().get("/production-plan").then().statusCode(200);
+
+        String tag = given().when().get("/products/" + productId).then().statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+        String listTag = given().when().get("/products").then().statusCode(200)
+                .extract().header("ETag");
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get("/products/" + productId)
+                .then()
+                .statusCode(304)
+                .header("ETag", is(tag));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        given().header("If-None-Match", listTag).when().get("/products").then().statusCode(304);
+
+        Integer materialId = given().when().get("/products/" + productId).then().statusCode(200)
+                .extract().path("productRawMaterials[0].rawMaterial.id");
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("quantity", 5))
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/increase")
+                .then()
+                .statusCode(200);
+
+        String changed = given()
+                .header("If-None-Match", tag)
+                .when()
+                .get("/products/" + productId)
+                .then()
+                .statusCode(200)
+                .body("productRawMaterials[0].rawMaterial.stockQuantity", is(15))
+                .extract().header("ETag");
+        assertNotEquals(tag, changed);
+
+        given().header("If-None-Match", listTag).when().get("/products").then().statusCode(200);
+    }
+
+    @Test
+    @Order(22)
+    @DisplayName("Updates sent with a stale ETag should be rejected")
+    public void testStaleUpdatesAreRejected() {
+        Integer productId = createProductsWithMaterials(1);
+        Response product = given().when().get("/products/" + productId);
+        String tag = product.header("ETag");
+        Integer materialId = product.path("productRawMaterials[0].rawMaterial.id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(Map.of("name", "Tagged Product", "value", 12.0))
+                .when()
+                .put("/products/" + productId)
+                .then()
+                .statusCode(200)
+                .header("ETag", not(tag));
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(Map.of("name", "Stale Product", "value", 13.0))
+                .when()
+                .put("/products/" + productId)
+                .then()
+                .statusCode(412);
+
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(Map.of("quantity", 4))
+                .when()
+                .put("/products/" + productId + "/raw-materials/" + materialId)
+                .then()
+                .statusCode(412);
+
+        given()
+                .when()
+                .get("/products/" + productId)
+                .then()
+                .statusCode(200)
+                .body("name", is("Tagged Product"))
+                .body("productRawMaterials[0].quantityRequired", is(1));
+    }
+
+    @Test
+    @Order(23)
+    @DisplayName("Internal BOM updates under contention should be retried instead of failing")
+    public void testContendedInternalUpdatesAreRetried() throws Exception {
+        Integer productId = createProductsWithMaterials(1);
+        int threads = 8;
+        int updatesPerThread = 10;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int quantity = t + 1;
+                futures.add(executor.submit(() -> {
+                    int exhausted = 0;
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        try {
+                            optimisticRetry.run("Product", productId.longValue(), () -> productRawMaterialRepository
+                                    .findByProductId(productId.longValue()).get(0).setQuantityRequired(quantity));
+                        } catch (ConcurrentUpdateException e) {
+                            exhausted++;
+                        }
+                    }
+                    return exhausted;
+                }));
+            }
+            int exhausted = 0;
+            for (Future<Integer> future : futures) {
+                exhausted += future.get(60, TimeUnit.SECONDS);
+            }
+
+            int committed = threads * updatesPerThread - exhausted;
+            assertTrue(committed > exhausted, "committed " + committed + ", gave up " + exhausted);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        given()
+                .when()
+                .get("/q/metrics")
+                .then()
+                .statusCode(200)
+                .body(containsString("inventory_optimistic_lock_conflicts_total"));
+    }
+
+    @Test
+    @Order(24)
+    @DisplayName("Sub-assemblies should be exploded for planning and guarded against cycles")
+    public void testMultiLevelBom() {
+        Integer material = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Sheet Metal", "stockQuantity", 100))
+                .when().post("/raw-materials")
+                .then().statusCode(201)
+                .extract().path("id");
+        Integer panel = createProduct("Panel", 5.0);
+        Integer cabinet = createProduct("Cabinet", 50.0);
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("rawMaterialId", material, "quantityRequired", 2))
+                .when().post("/products/" + panel + "/raw-materials")
+                .then().statusCode(201);
+        given().contentType(ContentType.JSON)
+                .body(Map.of("rawMaterialId", material, "quantityRequired", 1))
+                .when().post("/products/" + cabinet + "/raw-materials")
+                .then().statusCode(201);
+        given().contentType(ContentType.JSON)
+                .body(Map.of("componentId", panel, "quantityRequired", 3))
+                .when().post("/products/" + cabinet + "/components")
+                .then()
+                .statusCode(201)
+                .body("[0].componentId", is(panel))
+                .body("[0].quantityRequired", is(3));
+
+        // 3 panels of 2 units each, plus 1 unit directly.
+        given().when().get("/products/" + cabinet + "/requirements")
+                .then()
+                .statusCode(200)
+                .body("'" + material + "'", is(7));
+        given().when().get("/production-plan/product/" + cabinet + "/can-produce?quantity=14")
+                .then().statusCode(200).body("canProduce", is(true));
+        given().when().get("/production-plan/product/" + cabinet + "/can-produce?quantity=15")
+                .then().statusCode(200).body("canProduce", is(false));
+
+        // Changing a lower level reaches the products above it.
+        given().contentType(ContentType.JSON)
+                .body(Map.of("quantity", 4))
+                .when().put("/products/" + panel + "/raw-materials/" + material)
+                .then().statusCode(200);
+        given().when().get("/products/" + cabinet + "/requirements")
+                .then().statusCode(200).body("'" + material + "'", is(13));
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("componentId", cabinet, "quantityRequired", 1))
+                .when().post("/products/" + panel + "/components")
+                .then().statusCode(409);
+        given().contentType(ContentType.JSON)
+                .body(Map.of("componentId", cabinet, "quantityRequired", 1))
+                .when().post("/products/" + cabinet + "/components")
+                .then().statusCode(409);
+        given().when().delete("/products/" + panel).then().statusCode(409);
+
+        given().when().delete("/products/" + cabinet + "/components/" + panel).then().statusCode(204);
+        given().when().get("/products/" + cabinet + "/requirements")
+                .then().statusCode(200).body("'" + material + "'", is(1));
+        given().when().delete("/products/" + panel).then().statusCode(204);
+    }
+
+    private Integer createProduct(String name, double value) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", name, "value", value))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+    }
+
+    private int productCount() {
+        return given().when().get("/products?limit=1000").then().statusCode(200).extract().path("size()");
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Unchanged listings and plans should be served from pre-encoded bodies")
+    public void testEncodedBodiesAreCached() {
+        Integer firstId = createProductsWithMaterials(20);
+        given().when().get("/production-plan").then().statusCode(200);
+        String page = "/products?after=" + (firstId - 1) + "&limit=20";
+
+        String cold = given().when().get(page).then().statusCode(200).extract().asString();
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        String warm = given()
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get(page)
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", is("gzip"))
+                .header(Pagination.NEXT_CURSOR_HEADER, notNullValue())
+                .body("size()", is(20))
+                .extract()
+                .asString();
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(cold, warm);
+
+        given()
+                .header("Accept-Encoding", "identity")
+                .when()
+                .get(page)
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", nullValue())
+                .body("[0].id", is(firstId));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Renamed Listing Product", "value", 12.50))
+                .when()
+                .put("/products/" + firstId)
+                .then()
+                .statusCode(200);
+
+        given().when().get(page).then().statusCode(200).body("[0].name", is("Renamed Listing Product"));
+
+        String plan = given().when().get("/production-plan").then().statusCode(200)
+                .header("X-Plan-Version", notNullValue())
+                .extract().asString();
+        given().when().get("/production-plan").then().statusCode(200)
+                .header("X-Plan-Version", notNullValue())
+                .body(is(plan));
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("Editing the bill of materials should bump the product's version and ETag")
+    public void testBomEditsChangeProductTag() {
+        Integer productId = createProductsWithMaterials(1);
+        Response product = given().when().get("/products/" + productId);
+        String tag = product.header("ETag");
+        Integer materialId = product.path("productRawMaterials[0].rawMaterial.id");
+
+        String edited = given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(Map.of("quantity", 2))
+                .when()
+                .put("/products/" + productId + "/raw-materials/" + materialId)
+                .then()
+                .statusCode(200)
+                .extract().header("ETag");
+        assertNotEquals(tag, edited);
+
+        given().header("If-None-Match", tag).when().get("/products/" + productId).then().statusCode(200);
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(Map.of("name", "Stale BOM Product", "value", 11.0))
+                .when()
+                .put("/products/" + productId)
+                .then()
+                .statusCode(412);
+        given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", edited)
+                .body(Map.of("name", "Fresh BOM Product", "value", 11.0))
+                .when()
+                .put("/products/" + productId)
+                .then()
+                .statusCode(200);
+    }
+
+    private Integer createProductsWithMaterials(int count) {
+        Integer first = null;
+        for (int i = 0; i < count; i++) {
+            Integer materialId = given()
+                    .contentType(ContentType.JSON)
+                    .body(Map.of("name", "Listing Material " + i, "stockQuantity", 10))
+                    .when()
+                    .post("/raw-materials")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+            Integer productId = given()
+                    .contentType(ContentType.JSON)
+                    .body(Map.of("name", "Listing Product " + i, "value", 10.0))
+                    .when()
+                    .post("/products")
+                    .then()
+                    .statusCode(201)
+                    .extract()
+                    .path("id");
+
+            given()
+                    .contentType(ContentType.JSON)
+                    .body(Map.of("rawMaterialId", materialId, "quantityRequired", 1))
+                    .when()
+                    .post("/products/" + productId + "/raw-materials")
+                    .then()
+                    .statusCode(201);
+
+            if (first == null) {
+                first = productId;
+            }
+        }
+        return first;
+    }
+
+    private long statementsToList(Integer firstId, int limit) {
+        // Let the production plan catch up first, so its background queries don't end up in the count.
+        given().when().get("/production-plan").then().statusCode(200);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        given()
+                .when()
+                .get("/products?after=" + (firstId - 1) + "&limit=" + limit)
+                .then()
+                .statusCode(200)
+                .body("size()", is(limit))
+                .body("[0].productRawMaterials.size()", is(1));
+
+        return statistics.getPrepareStatementCount();
+    }
 }
+
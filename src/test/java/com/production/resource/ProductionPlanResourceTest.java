@@ -1,17 +1,23 @@
 package com.production.resource;
 
 import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit5.virtual.ShouldNotPin;
+import io.quarkus.test.junit5.virtual.VirtualThreadUnit;
 import io.restassured.http.ContentType;
 import org.junit.jupiter.api.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
+@VirtualThreadUnit
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class ProductionPlanResourceTest {
 
@@ -276,4 +282,429 @@ public class ProductionPlanResourceTest {
                 .body("productionItems", notNullValue())
                 .body("totalValue", notNullValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(11)
+    @DisplayName("Production plan should follow stock and BOM changes")
+    public void testProductionPlanFollowsChanges() {
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Plan Engine Material");
+        material.put("stockQuantity", 10);
+
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", "Plan Engine Product");
+        product.put("value", 80.00);
+
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(product)
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Map<String, Object> association = new HashMap<>();
+        association.put("rawMaterialId", materialId);
+        association.put("quantityRequired", 2);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(association)
+                .when()
+                .post("/products/" + productId + "/raw-materials")
+                .then()
+                .statusCode(201);
+
+        String quantityPath = "productionItems.find { it.productId == " + productId + " }.quantity";
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body(quantityPath, is(5));
+
+        Map<String, Integer> increase = new HashMap<>();
+        increase.put("quantity", 4);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(increase)
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/increase")
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body(quantityPath, is(7));
+
+        Map<String, Integer> quantity = new HashMap<>();
+        quantity.put("quantity", 7);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(quantity)
+                .when()
+                .put("/products/" + productId + "/raw-materials/" + materialId)
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body(quantityPath, is(2));
+    }
+
+    @Test
+    @Order(12)
+    @ShouldNotPin
+    @DisplayName("Read endpoints should not pin carrier threads")
+    public void testReadsDoNotPin() {
+        given().when().get("/products?limit=50").then().statusCode(200);
+        given().when().get("/raw-materials?limit=50").then().statusCode(200);
+        given().when().get("/raw-materials/low-stock").then().statusCode(200);
+
+        Integer productId = given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .extract()
+                .path("productionItems[0].productId");
+
+        if (productId != null) {
+            given()
+                    .when()
+                    .get("/production-plan/product/" + productId + "/can-produce?quantity=1")
+                    .then()
+                    .statusCode(200);
+        }
+    }
+
+    @Test
+    @Order(13)
+    @DisplayName("Production plan should answer 304 until stock or the catalog changes")
+    public void testPlanEntityTag() {
+        String tag = given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .extract()
+                .header("ETag");
+
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(304)
+                .header("ETag", is(tag));
+
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Plan Tag Material");
+        material.put("stockQuantity", 5);
+        given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201);
+
+        given()
+                .header("If-None-Match", tag)
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(tag))
+                .header("X-Plan-Version", notNullValue());
+    }
+
+    @Test
+    @Order(14)
+    @DisplayName("Scenarios should be planned without touching stock or prices")
+    public void testScenarios() {
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Scenario Material");
+        material.put("stockQuantity", 10);
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Integer premiumId = createProductUsing("Scenario Premium", 500.00, materialId);
+        Integer basicId = createProductUsing("Scenario Basic", 400.00, materialId);
+
+        String premium = "productionItems.find { it.productId == " + premiumId + " }.quantity";
+        String basic = "productionItems.find { it.productId == " + basicId + " }.quantity";
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body(premium, is(5))
+                .body(basic, nullValue());
+
+        String body = """
+                [
+                  {"name": "shipment", "stock": [{"rawMaterialId": %d, "delta": 6}]},
+                  {"name": "repriced", "prices": [{"productId": %d, "price": 600.00}]},
+                  {"name": "both", "stock": [{"rawMaterialId": %d, "delta": 6}],
+                   "prices": [{"productId": %d, "price": 600.00}]}
+                ]
+                """.formatted(materialId, basicId, materialId, basicId);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(body)
+                .when()
+                .post("/production-plan/scenarios")
+                .then()
+                .statusCode(200)
+                .header("X-Plan-Version", notNullValue())
+                .body("name", hasItems("shipment", "repriced", "both"))
+                .body("[0]." + premium, is(8))
+                .body("[0].totalValueChange", is(1500.0f))
+                .body("[1]." + basic, is(5))
+                .body("[1]." + premium, nullValue())
+                .body("[2]." + basic, is(8));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("[{\"name\": \"unknown\", \"stock\": [{\"rawMaterialId\": 999999, \"delta\": 1}]}]")
+                .when()
+                .post("/production-plan/scenarios")
+                .then()
+                .statusCode(404);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("[]")
+                .when()
+                .post("/production-plan/scenarios")
+                .then()
+                .statusCode(400);
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body(premium, is(5))
+                .body(basic, nullValue());
+    }
+
+    @Test
+    @Order(15)
+    @DisplayName("Plan changes should carry only the lines changed since a version")
+    public void testPlanChanges() {
+        long start = Long.parseLong(given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("X-Plan-Version"));
+
+        given()
+                .when()
+                .get("/production-plan/changes?since=" + start)
+                .then()
+                .statusCode(200)
+                .body("full", is(false))
+                .body("added.size()", is(0))
+                .body("changed.size()", is(0))
+                .body("removed.size()", is(0));
+
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Changes Material");
+        material.put("stockQuantity", 6);
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+        Integer productId = createProductUsing("Changes Product", 70.00, materialId);
+
+        long added = Long.parseLong(given()
+                .when()
+                .get("/production-plan/changes?since=" + start)
+                .then()
+                .statusCode(200)
+                .body("full", is(false))
+                .body("added.productId", hasItems(productId))
+                .body("added.find { it.productId == " + productId + " }.quantity", is(3))
+                .body("productionItems", nullValue())
+                .body("totalValue", notNullValue())
+                .extract()
+                .header("X-Plan-Version"));
+
+        Map<String, Integer> increase = new HashMap<>();
+        increase.put("quantity", 4);
+        given()
+                .contentType(ContentType.JSON)
+                .body(increase)
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/increase")
+                .then()
+                .statusCode(200);
+
+        given()
+                .when()
+                .get("/production-plan/changes?since=" + added)
+                .then()
+                .statusCode(200)
+                .body("added.size()", is(0))
+                .body("changed.productId", is(List.of(productId)))
+                .body("changed[0].quantity", is(5));
+
+        given()
+                .when()
+                .get("/production-plan/changes?since=" + start)
+                .then()
+                .statusCode(200)
+                .body("added.find { it.productId == " + productId + " }.quantity", is(5))
+                .body("changed.productId", not(hasItems(productId)));
+
+        given()
+                .when()
+                .delete("/products/" + productId + "/raw-materials/" + materialId)
+                .then()
+                .statusCode(204);
+
+        given()
+                .when()
+                .get("/production-plan/changes?since=" + added)
+                .then()
+                .statusCode(200)
+                .body("removed", is(List.of(productId)));
+
+        given()
+                .when()
+                .get("/production-plan/changes?since=" + Long.MAX_VALUE)
+                .then()
+                .statusCode(200)
+                .body("full", is(true))
+                .body("productionItems", notNullValue());
+
+        given()
+                .when()
+                .get("/production-plan/changes")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("X-Plan-Version should increase with every change")
+    public void testPlanVersionIncreases() {
+        long version = planVersion();
+
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Versioned Material");
+        material.put("stockQuantity", 4);
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+        long created = planVersion();
+        assertTrue(created > version);
+
+        Map<String, Integer> increase = new HashMap<>();
+        increase.put("quantity", 2);
+        given()
+                .contentType(ContentType.JSON)
+                .body(increase)
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/increase")
+                .then()
+                .statusCode(200);
+        long increased = planVersion();
+        assertTrue(increased > created);
+
+        Integer productId = createProductUsing("Versioned Product", 30.00, materialId);
+        long associated = planVersion();
+        assertTrue(associated > increased);
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .header("X-Plan-Version", is(String.valueOf(associated)))
+                .body("productionItems.find { it.productId == " + productId + " }.quantity", is(3));
+    }
+
+    private long planVersion() {
+        return Long.parseLong(given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("X-Plan-Version"));
+    }
+
+    private Integer createProductUsing(String name, double value, Integer materialId) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", name);
+        product.put("value", value);
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(product)
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Map<String, Object> association = new HashMap<>();
+        association.put("rawMaterialId", materialId);
+        association.put("quantityRequired", 2);
+        given()
+                .contentType(ContentType.JSON)
+                .body(association)
+                .when()
+                .post("/products/" + productId + "/raw-materials")
+                .then()
+                .statusCode(201);
+        return productId;
+    }
+}
@@ -0,0 +1,170 @@
+package com.production.resource;
+
+import com.production.service.InventoryVersion;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(ProductionPlanStalenessTest.StalePlans.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ProductionPlanStalenessTest {
+
+    private static final long MAX_STALENESS_MILLIS = 500;
+
+    @Inject
+    InventoryVersion inventoryVersion;
+
+    @Test
+    @Order(1)
+    @DisplayName("A plan within max-staleness should be served without waiting for the worker")
+    public void testStalePlanServedWithinMaxStaleness() {
+        long published = planVersion();
+
+        // A version nobody publishes: waiting for it would take the whole refresh timeout.
+        inventoryVersion.increment();
+
+        given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .time(lessThan(5_000L))
+                .header("X-Plan-Version", is(String.valueOf(published)));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("A read past max-staleness should wait for the worker to publish the change")
+    public void testReadPastMaxStalenessSeesChange() throws InterruptedException {
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", "Staleness Material");
+        material.put("stockQuantity", 6);
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(material)
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", "Staleness Product");
+        product.put("value", 40.00);
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(product)
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        Map<String, Object> association = new HashMap<>();
+        association.put("rawMaterialId", materialId);
+        association.put("quantityRequired", 2);
+        given()
+                .contentType(ContentType.JSON)
+                .body(association)
+                .when()
+                .post("/products/" + productId + "/raw-materials")
+                .then()
+                .statusCode(201);
+        long changed = inventoryVersion.current();
+
+        Thread.sleep(MAX_STALENESS_MILLIS + 100);
+
+        long version = Long.parseLong(given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .body("productionItems.find { it.productId == " + productId + " }.quantity", is(3))
+                .extract()
+                .header("X-Plan-Version"));
+        assertTrue(version >= changed);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Point queries should see a change committed just before them, within max-staleness too")
+    public void testPointQueriesSeeCommittedChanges() {
+        Integer materialId = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Point Query Material", "stockQuantity", 6))
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Point Query Product", "value", 30.00))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("rawMaterialId", materialId, "quantityRequired", 2))
+                .when()
+                .post("/products/" + productId + "/raw-materials")
+                .then()
+                .statusCode(201);
+
+        given().when().get("/production-plan/product/" + productId + "/can-produce?quantity=3")
+                .then().statusCode(200).body("canProduce", is(true));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("quantity", 2))
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/decrease")
+                .then()
+                .statusCode(200);
+
+        given().when().get("/production-plan/product/" + productId + "/can-produce?quantity=3")
+                .then().statusCode(200).body("canProduce", is(false));
+        given().when().get("/production-plan/product/" + productId)
+                .then().statusCode(200).body("quantity", is(2));
+    }
+
+    private long planVersion() {
+        return Long.parseLong(given()
+                .when()
+                .get("/production-plan")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("X-Plan-Version"));
+    }
+
+    public static class StalePlans implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            // Profiled, as application.properties sets the %test value this has to win over.
+            return Map.of(
+                    "%test.production-plan.max-staleness", MAX_STALENESS_MILLIS + "ms",
+                    "production-plan.refresh-timeout", "30s"
+            );
+        }
+    }
+}
@@ -2,15 +2,38 @@ package com.production.resource;
 
 import com.production.entity.RawMaterialEntity;
 import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
 import org.junit.jupiter.api.*;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -291,7 +314,15 @@ public class RawMaterialResourceTest {
                 .then()
                 .statusCode(200)
                 .contentType(ContentType.JSON)
-                .body("size()", greaterThan(0));
+                .body("size()", greaterThan(0))
+                .body("[0].name", is("Titanium Alloy"))
+                .body("[0].stockQuantity", is(50));
+
+        given()
+                .when()
+                .get("/raw-materials/search?name=Ti")
+                .then()
+                .statusCode(400);
     }
 
     @Test
@@ -320,4 +351,638 @@ public class RawMaterialResourceTest {
                 .statusCode(201)
                 .body("stockQuantity", is(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(15)
+    @DisplayName("Should return 409 when decreasing more than the stock")
+    public void testDecreaseInsufficientStock() {
+        Integer id = createMaterial("Insufficient", 10);
+
+        Map<String, Integer> request = new HashMap<>();
+        request.put("quantity", 11);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/raw-materials/" + id + "/stock/decrease")
+                .then()
+                .statusCode(409);
+
+        given()
+                .when()
+                .get("/raw-materials/" + id)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(10));
+    }
+
+    @Test
+    @Order(16)
+    @DisplayName("Should not lose concurrent stock increases")
+    public void testConcurrentIncreases() throws Exception {
+        Integer id = createMaterial("Concurrent Increase", 0);
+
+        List<Integer> statuses = runInParallel(200, () -> stockMovement(id, "increase", 1));
+
+        assertEquals(200, statuses.stream().filter(status -> status == 200).count());
+        given()
+                .when()
+                .get("/raw-materials/" + id)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(200));
+    }
+
+    @Test
+    @Order(17)
+    @DisplayName("Should never oversell under concurrent stock decreases")
+    public void testConcurrentDecreases() throws Exception {
+        Integer id = createMaterial("Concurrent Decrease", 100);
+
+        List<Integer> statuses = runInParallel(200, () -> stockMovement(id, "decrease", 1));
+
+        assertEquals(100, statuses.stream().filter(status -> status == 200).count());
+        assertEquals(100, statuses.stream().filter(status -> status == 409).count());
+        given()
+                .when()
+                .get("/raw-materials/" + id)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(0));
+    }
+
+    @Test
+    @Order(18)
+    @DisplayName("Should apply bulk stock movements and report each line")
+    public void testBulkStockMovements() {
+        Integer first = createMaterial("Bulk First", 10);
+        Integer second = createMaterial("Bulk Second", 5);
+
+        List<Map<String, Object>> movements = List.of(
+                Map.of("rawMaterialId", first, "delta", 15),
+                Map.of("rawMaterialId", second, "delta", -8),
+                Map.of("rawMaterialId", first, "delta", -20),
+                Map.of("rawMaterialId", 999999, "delta", 1)
+        );
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(movements)
+                .when()
+                .post("/raw-materials/stock/movements")
+                .then()
+                .statusCode(200)
+                .body("size()", is(4))
+                .body("[0].applied", is(true))
+                .body("[0].stockQuantity", is(25))
+                .body("[1].applied", is(false))
+                .body("[1].error", is("INSUFFICIENT_STOCK"))
+                .body("[1].stockQuantity", is(5))
+                .body("[2].applied", is(true))
+                .body("[2].stockQuantity", is(5))
+                .body("[3].error", is("NOT_FOUND"))
+                .body("[3].stockQuantity", nullValue());
+
+        given()
+                .when()
+                .get("/raw-materials/" + second)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(5));
+    }
+
+    @Test
+    @Order(19)
+    @DisplayName("Should page through raw materials with a cursor")
+    public void testKeysetPagination() {
+        Integer first = createMaterial("Page One", 1);
+        Integer second = createMaterial("Page Two", 2);
+        Integer third = createMaterial("Page Three", 3);
+
+        String cursor = given()
+                .when()
+                .get("/raw-materials?after=" + (first - 1) + "&limit=2")
+                .then()
+                .statusCode(200)
+                .body("size()", is(2))
+                .body("[0].id", is(first))
+                .body("[1].id", is(second))
+                .header("X-Next-Cursor", is(String.valueOf(second)))
+                .extract()
+                .header("X-Next-Cursor");
+
+        given()
+                .when()
+                .get("/raw-materials?after=" + cursor + "&limit=2")
+                .then()
+                .statusCode(200)
+                .body("[0].id", is(third));
+
+        given()
+                .when()
+                .get("/raw-materials?limit=0")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(20)
+    @DisplayName("Should export raw materials as NDJSON")
+    public void testExport() {
+        Integer id = createMaterial("Exported Material", 42);
+
+        String body = given()
+                .when()
+                .get("/raw-materials/export")
+                .then()
+                .statusCode(200)
+                .contentType(containsString("application/x-ndjson"))
+                .extract()
+                .asString();
+
+        List<JsonPath> lines = body.lines().map(JsonPath::from).toList();
+        assertTrue(lines.size() > 1);
+
+        JsonPath exported = lines.stream()
+                .filter(line -> id.equals(line.getInt("id")))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Exported Material", exported.getString("name"));
+        assertEquals(42, exported.getInt("stockQuantity"));
+    }
+
+    @Test
+    @Order(21)
+    @DisplayName("Should import raw materials from CSV and report rejected rows")
+    public void testCsvImport() {
+        Integer existing = createMaterial("Import Existing", 1);
+
+        String csv = """
+                name,stock_quantity
+                Import New,10
+                Import Broken,abc
+                ,5
+                Import New,3
+                Import Existing,7
+                """;
+
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/raw-materials/import")
+                .then()
+                .statusCode(200)
+                .body("received", is(5))
+                .body("inserted", is(1))
+                .body("updated", is(1))
+                .body("rejected", is(3))
+                .body("rejectedRows.line", hasItems(3, 4, 5))
+                .body("rejectedRows.error", hasItems("INVALID_STOCK_QUANTITY", "NAME_REQUIRED", "DUPLICATE_NAME"));
+
+        given()
+                .when()
+                .get("/raw-materials/" + existing)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(7));
+
+        given()
+                .when()
+                .get("/raw-materials/search?name=Import New")
+                .then()
+                .statusCode(200)
+                .body("size()", is(1))
+                .body("[0].stockQuantity", is(10));
+
+        given()
+                .contentType("text/csv")
+                .body("name,stock_quantity\nToo,Many,Columns\n")
+                .when()
+                .post("/raw-materials/import")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(22)
+    @DisplayName("Should expose stock, planner and request metrics for Prometheus")
+    public void testMetrics() {
+        Integer id = createMaterial("Metered Material", 5);
+        assertEquals(200, stockMovement(id, "increase", 1));
+        assertEquals(409, stockMovement(id, "decrease", 100));
+
+        given()
+                .when()
+                .get("/q/metrics")
+                .then()
+                .statusCode(200)
+                .body(containsString("inventory_stock_mutations_total{operation=\"increase\""))
+                .body(containsString("inventory_stock_rejections_total{reason=\"insufficient_stock\""))
+                .body(containsString("catalog_size{type=\"raw_materials\""))
+                .body(containsString("production_plan_phase_seconds"))
+                .body(containsString("http_server_requests_seconds{"))
+                .body(containsString("quantile=\"0.999\""));
+    }
+
+    @Test
+    @Order(23)
+    @DisplayName("Reactive raw material listings should return the same JSON and cursor as the blocking ones")
+    public void testReactiveListingsMatchBlocking() {
+        Integer first = createMaterial("Reactive Material 1", 2);
+        createMaterial("Reactive Material 2", 50);
+        createMaterial("Reactive Material 3", 1);
+
+        for (String query : List.of("?after=" + (first - 1) + "&limit=2",
+                "/low-stock?threshold=5&after=" + (first - 1) + "&limit=1")) {
+            Response blocking = given().when().get("/raw-materials" + query);
+            Response reactive = given().when().get("/reactive/raw-materials" + query);
+
+            assertEquals(200, blocking.statusCode());
+            assertEquals(200, reactive.statusCode());
+            assertEquals(blocking.asString(), reactive.asString());
+            assertEquals(blocking.header("X-Next-Cursor"), reactive.header("X-Next-Cursor"));
+        }
+    }
+
+    @Test
+    @Order(24)
+    @DisplayName("Should push SSE alerts when a material crosses the low-stock threshold")
+    public void testLowStockStream() throws Exception {
+        Integer id = createMaterial("Alerted Material", 10);
+        BlockingQueue<JsonPath> alerts = new LinkedBlockingQueue<>();
+
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + RestAssured.port + "/raw-materials/low-stock/stream?threshold=5"))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                    .thenAccept(response -> response.body()
+                            .filter(line -> line.startsWith("data:"))
+                            .map(line -> new JsonPath(line.substring(5).trim()))
+                            .filter(alert -> id.equals(alert.getInt("rawMaterialId")))
+                            .forEach(alerts::add));
+
+            // The stream may not be subscribed yet when the first change commits, so keep crossing
+            // the threshold until an alert arrives.
+            JsonPath alert = null;
+            for (int attempt = 0; attempt < 20 && alert == null; attempt++) {
+                assertEquals(200, stockMovement(id, "decrease", 6));
+                alert = alerts.poll(500, TimeUnit.MILLISECONDS);
+                if (alert == null) {
+                    assertEquals(200, stockMovement(id, "increase", 6));
+                    alert = alerts.poll(500, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            assertNotNull(alert, "No low-stock alert received");
+            String next = alert.getString("state").equals("LOW") ? "RECOVERED" : "LOW";
+            assertEquals(5, alert.getInt("threshold"));
+
+            assertEquals(200, next.equals("RECOVERED")
+                    ? stockMovement(id, "increase", 6)
+                    : stockMovement(id, "decrease", 6));
+            JsonPath following = alerts.poll(5, TimeUnit.SECONDS);
+            assertNotNull(following, "No alert for the opposite crossing");
+            assertEquals(next, following.getString("state"));
+
+            // Staying on the same side of the threshold is not a crossing.
+            assertEquals(200, stockMovement(id, next.equals("LOW") ? "decrease" : "increase", 1));
+            assertNull(alerts.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            client.shutdownNow();
+        }
+
+        given()
+                .when()
+                .get("/raw-materials/low-stock/stream")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @Order(25)
+    @DisplayName("Cached raw materials should reflect native stock updates")
+    public void testStockUpdatesInvalidateCache() {
+        Integer id = createMaterial("Cached Material", 10);
+
+        for (int i = 0; i < 2; i++) {
+            given().when().get("/raw-materials/" + id).then().statusCode(200).body("stockQuantity", is(10));
+        }
+
+        assertEquals(200, stockMovement(id, "decrease", 3));
+        given().when().get("/raw-materials/" + id).then().statusCode(200).body("stockQuantity", is(7));
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(List.of(Map.of("rawMaterialId", id, "delta", 5)))
+                .when()
+                .post("/raw-materials/stock/movements")
+                .then()
+                .statusCode(200);
+        given().when().get("/raw-materials/" + id).then().statusCode(200).body("stockQuantity", is(12));
+    }
+
+    @Test
+    @Order(26)
+    @DisplayName("Raw material ETags should answer 304 until the stock or name changes")
+    public void testRawMaterialEntityTags() {
+        Integer id = createMaterial("Tagged Material", 10);
+
+        String tag = given().when().get("/raw-materials/" + id).then().statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+        given().header("If-None-Match", tag).when().get("/raw-materials/" + id).then()
+                .statusCode(304)
+                .header("ETag", is(tag));
+
+        assertEquals(200, stockMovement(id, "increase", 1));
+        String increased = given().header("If-None-Match", tag).when().get("/raw-materials/" + id).then()
+                .statusCode(200)
+                .body("stockQuantity", is(11))
+                .extract().header("ETag");
+        assertNotEquals(tag, increased);
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(new RawMaterialEntity("Tagged Material Renamed", 11))
+                .when()
+                .put("/raw-materials/" + id)
+                .then()
+                .statusCode(200);
+        given().header("If-None-Match", increased).when().get("/raw-materials/" + id).then()
+                .statusCode(200)
+                .body("name", is("Tagged Material Renamed"));
+
+        String lowStockTag = given().when().get("/raw-materials/low-stock?threshold=50").then().statusCode(200)
+                .extract().header("ETag");
+        given().header("If-None-Match", lowStockTag).when().get("/raw-materials/low-stock?threshold=50").then()
+                .statusCode(304);
+        given().header("If-None-Match", lowStockTag).when().get("/reactive/raw-materials/low-stock?threshold=50").then()
+                .statusCode(304);
+
+        assertEquals(200, stockMovement(id, "decrease", 1));
+        given().header("If-None-Match", lowStockTag).when().get("/raw-materials/low-stock?threshold=50").then()
+                .statusCode(200)
+                .header("ETag", not(lowStockTag));
+    }
+
+    @Test
+    @Order(27)
+    @DisplayName("Concurrent updates from the same ETag should let exactly one writer win")
+    public void testConcurrentUpdatesConflict() throws Exception {
+        Integer id = createMaterial("Contended Material", 10);
+        String tag = given().when().get("/raw-materials/" + id).then().statusCode(200).extract().header("ETag");
+
+        List<Integer> statuses = runInParallel(16, () -> given()
+                .contentType(ContentType.JSON)
+                .header("If-Match", tag)
+                .body(new RawMaterialEntity("Contended Material", 20))
+                .when()
+                .put("/raw-materials/" + id)
+                .then()
+                .extract()
+                .statusCode());
+
+        assertEquals(1, statuses.stream().filter(status -> status == 200).count(), statuses.toString());
+        assertTrue(statuses.stream().allMatch(status -> status == 200 || status == 409 || status == 412),
+                statuses.toString());
+    }
+
+    @Test
+    @Order(28)
+    @DisplayName("Read-modify-write clients under contention should lose no update")
+    public void testContendedReadModifyWrite() throws Exception {
+        Integer id = createMaterial("Hot Material", 0);
+        int clients = 8;
+        int updatesPerClient = 10;
+
+        List<Integer> applied = runInParallel(clients, () -> {
+            int done = 0;
+            while (done < updatesPerClient) {
+                Response current = given().when().get("/raw-materials/" + id);
+                int status = given()
+                        .contentType(ContentType.JSON)
+                        .header("If-Match", current.header("ETag"))
+                        .body(new RawMaterialEntity("Hot Material", current.<Integer>path("stockQuantity") + 1))
+                        .when()
+                        .put("/raw-materials/" + id)
+                        .then()
+                        .extract()
+                        .statusCode();
+                if (status == 200) {
+                    done++;
+                } else {
+                    assertTrue(status == 409 || status == 412, "Unexpected status " + status);
+                }
+            }
+            return done;
+        });
+
+        int total = applied.stream().mapToInt(Integer::intValue).sum();
+        assertEquals(clients * updatesPerClient, total);
+        given().when().get("/raw-materials/" + id).then().statusCode(200).body("stockQuantity", is(total));
+    }
+
+    @Test
+    @Order(29)
+    @DisplayName("Should rebuild past stock from the movement ledger")
+    public void testStockAsOf() throws Exception {
+        Instant beforeCreation = Instant.now();
+        Thread.sleep(5);
+        Integer id = createMaterial("Ledger Material", 10);
+        assertEquals(200, stockMovement(id, "increase", 5));
+        Thread.sleep(5);
+        Instant afterIncrease = Instant.now();
+        Thread.sleep(5);
+        assertEquals(200, stockMovement(id, "decrease", 3));
+        given().when().patch("/raw-materials/" + id + "/stock?quantity=100").then().statusCode(200);
+
+        given().when().get("/raw-materials/" + id + "/stock")
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(100));
+        given().when().get("/raw-materials/" + id + "/stock?asOf=" + afterIncrease)
+                .then()
+                .statusCode(200)
+                .body("stockQuantity", is(15));
+        given().when().get("/raw-materials/" + id + "/stock?asOf=" + beforeCreation)
+                .then()
+                .statusCode(404);
+        given().when().get("/raw-materials/" + id + "/stock?asOf=yesterday")
+                .then()
+                .statusCode(400);
+
+        given().when().get("/raw-materials/" + id + "/movements")
+                .then()
+                .statusCode(200)
+                .body("size()", is(4))
+                .body("kind", is(List.of("CREATED", "CHANGED", "CHANGED", "CHANGED")))
+                .body("delta", is(List.of(10, 5, -3, 88)))
+                .body("stockQuantity", is(List.of(10, 15, 12, 100)));
+    }
+
+    @Test
+    @Order(30)
+    @DisplayName("Where-used should list the products a material feeds, through sub-assemblies too")
+    public void testWhereUsed() {
+        Integer id = createMaterial("Where Used Material", 12);
+        Integer part = createProduct("Where Used Part", 900.00);
+        Integer assembly = createProduct("Where Used Assembly", 50.00);
+
+        given().when().get("/raw-materials/" + id + "/where-used")
+                .then()
+                .statusCode(200)
+                .body("size()", is(0));
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("rawMaterialId", id, "quantityRequired", 3))
+                .when().post("/products/" + part + "/raw-materials")
+                .then().statusCode(201);
+        given().contentType(ContentType.JSON)
+                .body(Map.of("componentId", part, "quantityRequired", 2))
+                .when().post("/products/" + assembly + "/components")
+                .then().statusCode(201);
+
+        given().when().get("/raw-materials/" + id + "/where-used")
+                .then()
+                .statusCode(200)
+                .body("productId", is(List.of(part, assembly)))
+                .body("quantityRequired", is(List.of(3, 6)))
+                .body("plannedQuantity", is(List.of(4, 0)));
+
+        stockMovement(id, "increase", 3);
+
+        given().when().get("/raw-materials/" + id + "/where-used")
+                .then()
+                .statusCode(200)
+                .body("plannedQuantity", is(List.of(5, 0)));
+
+        given().when().get("/raw-materials/999999/where-used")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    @Order(31)
+    @DisplayName("Should push SSE alerts when a CSV import crosses the low-stock threshold")
+    public void testLowStockStreamOnImport() throws Exception {
+        Integer id = createMaterial("Import Alerted Material", 10);
+        BlockingQueue<JsonPath> alerts = new LinkedBlockingQueue<>();
+
+        HttpClient client = HttpClient.newHttpClient();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + RestAssured.port + "/raw-materials/low-stock/stream?threshold=5"))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                    .thenAccept(response -> response.body()
+                            .filter(line -> line.startsWith("data:"))
+                            .map(line -> new JsonPath(line.substring(5).trim()))
+                            .filter(alert -> id.equals(alert.getInt("rawMaterialId")))
+                            .forEach(alerts::add));
+
+            // As with single changes, keep crossing until the stream is subscribed.
+            JsonPath alert = null;
+            for (int attempt = 0; attempt < 20 && alert == null; attempt++) {
+                importStock("Import Alerted Material", 2);
+                alert = alerts.poll(500, TimeUnit.MILLISECONDS);
+                if (alert == null) {
+                    importStock("Import Alerted Material", 10);
+                    alert = alerts.poll(500, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            assertNotNull(alert, "No low-stock alert received for an import");
+            String next = alert.getString("state").equals("LOW") ? "RECOVERED" : "LOW";
+
+            importStock("Import Alerted Material", next.equals("LOW") ? 2 : 10);
+            JsonPath following = alerts.poll(5, TimeUnit.SECONDS);
+            assertNotNull(following, "No alert for the opposite crossing");
+            assertEquals(next, following.getString("state"));
+            assertEquals(next.equals("LOW") ? 10 : 2, following.getInt("previousQuantity"));
+            assertEquals(next.equals("LOW") ? 2 : 10, following.getInt("stockQuantity"));
+        } finally {
+            client.shutdownNow();
+        }
+    }
+
+    private void importStock(String name, int stock) {
+        given()
+                .contentType("text/csv")
+                .body("name,stock_quantity\n" + name + "," + stock + "\n")
+                .when()
+                .post("/raw-materials/import")
+                .then()
+                .statusCode(200)
+                .body("updated", is(1));
+    }
+
+    private Integer createMaterial(String name, int stock) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(new RawMaterialEntity(name, stock))
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+    }
+
+    private Integer createProduct(String name, double value) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("name", name);
+        product.put("value", value);
+        return given()
+                .contentType(ContentType.JSON)
+                .body(product)
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+    }
+
+    private int stockMovement(Integer id, String direction, int quantity) {
+        Map<String, Integer> request = new HashMap<>();
+        request.put("quantity", quantity);
+
+        return given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/raw-materials/" + id + "/stock/" + direction)
+                .then()
+                .extract()
+                .statusCode();
+    }
+
+    private List<Integer> runInParallel(int clients, Callable<Integer> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                statuses.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.production.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.ValidatableResponse;
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReservationResourceTest {
+
+    @Test
+    @Order(1)
+    @DisplayName("A reservation should hold its materials from other reservations, withdrawals and the plan")
+    public void testReservationHoldsMaterials() {
+        Integer materialId = createMaterial("Reserved Steel", 10);
+        Integer productId = createProduct("Reserved Frame", materialId, 2);
+
+        Integer reservationId = reserve(productId, 3, null)
+                .statusCode(201)
+                .body("status", is("ACTIVE"))
+                .body("materials.'" + materialId + "'", is(6))
+                .extract()
+                .path("id");
+
+        given().when().get("/reservations/available/" + materialId).then()
+                .statusCode(200)
+                .body("stockQuantity", is(10))
+                .body("reserved", is(6))
+                .body("available", is(4));
+
+        reserve(productId, 3, null).statusCode(409);
+        assertEquals(409, withdraw(materialId, 5));
+
+        canProduce(productId, 2, true);
+        canProduce(productId, 3, false);
+
+        given().when().get("/reservations/" + reservationId).then()
+                .statusCode(200)
+                .body("productId", is(productId))
+                .body("quantity", is(3));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Committing a reservation should consume its stock exactly once")
+    public void testCommitConsumesStock() {
+        Integer materialId = createMaterial("Committed Steel", 10);
+        Integer productId = createProduct("Committed Frame", materialId, 2);
+        Integer reservationId = reserve(productId, 3, null).statusCode(201).extract().path("id");
+
+        given().when().post("/reservations/" + reservationId + "/commit").then()
+                .statusCode(200)
+                .body("status", is("COMMITTED"));
+        given().when().post("/reservations/" + reservationId + "/commit").then().statusCode(409);
+        given().when().post("/reservations/" + reservationId + "/release").then().statusCode(409);
+
+        given().when().get("/reservations/available/" + materialId).then()
+                .statusCode(200)
+                .body("stockQuantity", is(4))
+                .body("reserved", is(0))
+                .body("available", is(4));
+        canProduce(productId, 2, true);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Releasing a reservation should make its stock available again")
+    public void testReleaseReturnsStock() {
+        Integer materialId = createMaterial("Released Steel", 10);
+        Integer productId = createProduct("Released Frame", materialId, 2);
+        Integer reservationId = reserve(productId, 5, null).statusCode(201).extract().path("id");
+        canProduce(productId, 1, false);
+
+        given().when().post("/reservations/" + reservationId + "/release").then()
+                .statusCode(200)
+                .body("status", is("RELEASED"));
+
+        given().when().get("/reservations/available/" + materialId).then()
+                .statusCode(200)
+                .body("available", is(10));
+        canProduce(productId, 5, true);
+        assertEquals(200, withdraw(materialId, 10));
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Reservations should expire after their TTL")
+    public void testReservationsExpire() throws InterruptedException {
+        Integer materialId = createMaterial("Expiring Steel", 10);
+        Integer productId = createProduct("Expiring Frame", materialId, 2);
+        Integer reservationId = reserve(productId, 5, 1L).statusCode(201).extract().path("id");
+        reserve(productId, 1, null).statusCode(409);
+
+        String status = "ACTIVE";
+        for (int attempt = 0; attempt < 50 && status.equals("ACTIVE"); attempt++) {
+            Thread.sleep(100);
+            status = given().when().get("/reservations/" + reservationId).then().statusCode(200)
+                    .extract().path("status");
+        }
+        assertEquals("EXPIRED", status);
+
+        given().when().post("/reservations/" + reservationId + "/commit").then().statusCode(409);
+        given().when().get("/reservations/available/" + materialId).then()
+                .statusCode(200)
+                .body("available", is(10));
+        reserve(productId, 5, null).statusCode(201);
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Should reject invalid reservations")
+    public void testInvalidReservations() {
+        Integer materialId = createMaterial("Invalid Steel", 10);
+        Integer productId = createProduct("Invalid Frame", materialId, 2);
+
+        reserve(productId, 0, null).statusCode(400);
+        reserve(productId, 1, 0L).statusCode(400);
+        reserve(999999, 1, null).statusCode(404);
+        given().when().get("/reservations/999999").then().statusCode(404);
+        given().when().post("/reservations/999999/commit").then().statusCode(404);
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Setting stock should not go below the units held by reservations")
+    public void testSetStockKeepsHeldUnits() {
+        Integer materialId = createMaterial("Set Steel", 10);
+        Integer productId = createProduct("Set Frame", materialId, 2);
+        reserve(productId, 3, null).statusCode(201);
+
+        given().when().patch("/raw-materials/" + materialId + "/stock?quantity=5").then().statusCode(409);
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", "Set Steel", "stockQuantity", 5))
+                .when()
+                .put("/raw-materials/" + materialId)
+                .then()
+                .statusCode(409);
+
+        given().when().patch("/raw-materials/" + materialId + "/stock?quantity=6").then()
+                .statusCode(200)
+                .body("stockQuantity", is(6));
+        given().when().get("/reservations/available/" + materialId).then()
+                .statusCode(200)
+                .body("stockQuantity", is(6))
+                .body("available", is(0));
+    }
+
+    private ValidatableResponse reserve(Integer productId, int quantity, Long ttlSeconds) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("productId", productId);
+        request.put("quantity", quantity);
+        if (ttlSeconds != null) {
+            request.put("ttlSeconds", ttlSeconds);
+        }
+
+        return given()
+                .contentType(ContentType.JSON)
+                .body(request)
+                .when()
+                .post("/reservations")
+                .then();
+    }
+
+    private void canProduce(Integer productId, int quantity, boolean expected) {
+        given()
+                .when()
+                .get("/production-plan/product/" + productId + "/can-produce?quantity=" + quantity)
+                .then()
+                .statusCode(200)
+                .body("canProduce", is(expected));
+    }
+
+    private int withdraw(Integer materialId, int quantity) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("quantity", quantity))
+                .when()
+                .post("/raw-materials/" + materialId + "/stock/decrease")
+                .then()
+                .extract()
+                .statusCode();
+    }
+
+    private Integer createMaterial(String name, int stock) {
+        return given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", name, "stockQuantity", stock))
+                .when()
+                .post("/raw-materials")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+    }
+
+    private Integer createProduct(String name, Integer materialId, int quantityRequired) {
+        Integer productId = given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("name", name, "value", 10.0))
+                .when()
+                .post("/products")
+                .then()
+                .statusCode(201)
+                .extract()
+                .path("id");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body(Map.of("rawMaterialId", materialId, "quantityRequired", quantityRequired))
+                .when()
+                .post("/products/" + productId + "/raw-materials")
+                .then()
+                .statusCode(201);
+        return productId;
+    }
+}
@@ -0,0 +1,132 @@
+package com.production.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+
+    @Test
+    @DisplayName("Matches should be ranked exact, prefix, word start, then anywhere")
+    public void testRanking() {
+        NameIndex index = new NameIndex();
+        index.put(1, "Steel Screw");
+        index.put(2, "Screw");
+        index.put(3, "Screwdriver");
+        index.put(4, "Microscrew");
+        index.put(5, "Wood");
+
+        List<NameIndex.Match> matches = index.search("screw", 10);
+
+        assertEquals(List.of(2L, 3L, 1L, 4L), matches.stream().map(NameIndex.Match::id).toList());
+        assertEquals(List.of(0, 1, 2, 3), matches.stream().map(NameIndex.Match::rank).toList());
+        assertEquals("Screw", matches.get(0).name());
+    }
+
+    @Test
+    @DisplayName("Results should be limited to the best matches")
+    public void testLimit() {
+        NameIndex index = new NameIndex();
+        index.put(1, "Oak Board");
+        index.put(2, "Board");
+        index.put(3, "Pine Board");
+        index.put(4, "Boardwalk Plank");
+
+        List<NameIndex.Match> matches = index.search("board", 2);
+
+        assertEquals(List.of(2L, 4L), matches.stream().map(NameIndex.Match::id).toList());
+        assertTrue(index.search("board", 0).isEmpty());
+        assertTrue(index.search("  ", 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Queries shorter than the minimum length should find nothing")
+    public void testShortQueries() {
+        NameIndex index = new NameIndex();
+        index.put(1, "Tape");
+        index.put(2, "Ta");
+
+        assertTrue(index.search("t", 10).isEmpty());
+        assertTrue(index.search(" ta ", 10).isEmpty());
+        assertEquals(1, index.search("tap", 10).size());
+    }
+
+    @Test
+    @DisplayName("Renames and deletes should be reflected immediately")
+    public void testUpdates() {
+        NameIndex index = new NameIndex();
+        index.put(1, "Copper Wire");
+
+        index.put(1, "Aluminium Wire");
+        assertTrue(index.search("copper", 10).isEmpty());
+        assertEquals(1, index.search("alumin", 10).size());
+
+        index.remove(1);
+        assertTrue(index.search("wire", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Changes made while reloading should survive the reload")
+    public void testReloadReplaysConcurrentChanges() {
+        NameIndex index = new NameIndex();
+        index.put(1, "Old Name");
+
+        index.reload(() -> {
+            // Committed after the names were read, so missing from the loaded map.
+            index.put(2, "Glue");
+            index.remove(3);
+            Map<Long, String> loaded = new HashMap<>();
+            loaded.put(1L, "Loaded Name");
+            loaded.put(3L, "Deleted Meanwhile");
+            return loaded;
+        });
+
+        assertEquals(1, index.search("loaded", 10).size());
+        assertEquals(1, index.search("glue", 10).size());
+        assertTrue(index.search("deleted", 10).isEmpty());
+        assertTrue(index.search("old", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Search should find exactly the names a LIKE scan would")
+    public void testMatchesLinearScan() {
+        Random random = new Random(7);
+        String alphabet = "abcde ";
+        Map<Long, String> names = new HashMap<>();
+        NameIndex index = new NameIndex();
+        for (long id = 1; id <= 2000; id++) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            names.put(id, name.toString().toUpperCase(Locale.ROOT));
+            index.put(id, names.get(id));
+        }
+
+        for (int round = 0; round < 200; round++) {
+            StringBuilder query = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int i = 0; i < length; i++) {
+                query.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String needle = query.toString().trim();
+            if (needle.isEmpty()) {
+                continue;
+            }
+
+            long expected = needle.length() < NameIndex.MIN_QUERY_LENGTH ? 0 : names.values().stream()
+                    .filter(name -> name.trim().toLowerCase(Locale.ROOT).contains(needle))
+                    .count();
+            assertEquals(expected, index.search(needle, Integer.MAX_VALUE).size(), "query '" + needle + "'");
+        }
+    }
+}